@@ -1,6 +1,8 @@
 import java.util.*;
 import java.util.Random;
 import java.math.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /*
  * The purpose of this class is to solve the general chinese remainder theorem
@@ -22,17 +24,36 @@ public class ChineseRemainder{
      *         and return [x, y, gcd(a,b)]
      */
     public static long[] extEuc(long a, long b){
-        if(b == 0) {
-            long[] arr = {1, 0, a};
-            return arr;
+        long[] arr = new long[3];
+        extEuc(a, b, arr);
+        return arr;
+    }
+
+    /*
+     * Same as above, but iterative and without allocating, the result is
+     * written to out. The coefficients are the ones the recursive
+     * formulation gives, kept for the last two remainders only.
+     *
+     * @param out Gets [x, y, gcd(a,b)].
+     */
+    public static void extEuc(long a, long b, long[] out){
+        long x0 = 1, y0 = 0;
+        long x1 = 0, y1 = 1;
+        while(b != 0){
+            long c = a/b;
+            long r = a - c*b;
+            a = b;
+            b = r;
+            long t = x0 - c*x1;
+            x0 = x1;
+            x1 = t;
+            t = y0 - c*y1;
+            y0 = y1;
+            y1 = t;
         }
-        long c = a/b; 
-        long r = a%b;
-        long[] arr = extEuc(b,r); 
-        long x1 = arr[1];
-        arr[1] = arr[0] - c*arr[1];
-        arr[0] = x1;
-        return arr; 
+        out[0] = x0;
+        out[1] = y0;
+        out[2] = a;
     }
 
     /*
@@ -40,9 +61,32 @@ public class ChineseRemainder{
      *      x = a (mod n)
      *      x = b (mod m) 
      *
-     * @return Returns x in the above algorithm.
+     * Only longs are used, products that could pass 64 bits are reduced
+     * with mulMod. If lcm(n, m) doesn't fit in a long, the solution is
+     * found with BigInteger instead and only its low 64 bits are returned,
+     * use solveBig to get it exactly.
+     *
+     * @param n The first modulus, n > 0.
+     * @param m The second modulus, m > 0.
+     * @return [x, lcm(n, m)] with 0 <= x < lcm(n, m), or [-1, -1] if there
+     *         is no solution.
      */
     public static long[] solve(long a, long n, long b, long m){
+        long[] buf = new long[3];
+        if(!solveLong(a, n, b, m, buf)){
+            BigInteger[] big = solveBig(a, n, b, m);
+            return new long[]{big[0].longValue(), big[1].longValue()};
+        }
+        return new long[]{buf[0], buf[1]};
+    }
+
+    /*
+     * Same as above, but the result is exact even if lcm(n, m) doesn't fit
+     * in a long.
+     *
+     * @return [x, lcm(n, m)], or null if there is no solution.
+     */
+    public static BigInteger[] solveBig(long a, long n, long b, long m){
         long[] arr = extEuc(n,m); 
         BigInteger g = BigInteger.valueOf(arr[2]);
         BigInteger v = BigInteger.valueOf(arr[0]);
@@ -55,11 +99,9 @@ public class ChineseRemainder{
             BigInteger x = ab.multiply(u).multiply(mb).divide(g).add(bb.multiply(v).multiply(nb).divide(g));
             BigInteger k = mb.multiply(nb).divide(g); 
             x = x.mod(k);
-            long[] res = {x.longValue(), k.longValue()};
-            return res;
+            return new BigInteger[]{x, k};
         } else {
-            long[] res = {-1, -1};
-            return res;
+            return null;
         }
     }
 
@@ -77,4 +119,198 @@ public class ChineseRemainder{
         }
         return xk;
     }
-}        
+
+    /*
+     * Solves x = a[i] (mod m[i]) for all i. The congruences are merged
+     * with longs while the combined modulus fits, and with BigInteger
+     * from the first merge where it doesn't.
+     *
+     * @return [x, lcm of all m[i]], or null if there is no solution.
+     */
+    public static BigInteger[] solveBig(long[] a, long[] m){
+        long x = Math.floorMod(a[0], m[0]);
+        long k = m[0];
+        long[] buf = new long[3];
+        int i = 1;
+        for(; i < a.length; ++i){
+            if(!solveLong(a[i], m[i], x, k, buf)){
+                break;
+            }
+            if(buf[0] == -1){
+                return null;
+            }
+            x = buf[0];
+            k = buf[1];
+        }
+        BigInteger bx = BigInteger.valueOf(x);
+        BigInteger bk = BigInteger.valueOf(k);
+        for(; i < a.length; ++i){
+            BigInteger mi = BigInteger.valueOf(m[i]);
+            BigInteger g = bk.gcd(mi);
+            BigInteger diff = BigInteger.valueOf(a[i]).subtract(bx);
+            if(diff.mod(g).signum() != 0){
+                return null;
+            }
+            BigInteger mg = mi.divide(g);
+            BigInteger t = diff.divide(g).multiply(bk.divide(g).modInverse(mg)).mod(mg);
+            bx = bx.add(bk.multiply(t));
+            bk = bk.multiply(mg);
+        }
+        return new BigInteger[]{bx, bk};
+    }
+
+    /*
+     * Solves the two congruences above for every i and writes [x, lcm] to
+     * outX[i] and outK[i], [-1, -1] where there is no solution. Nothing is
+     * allocated per system.
+     */
+    public static void solveAll(long[] a, long[] n, long[] b, long[] m, long[] outX, long[] outK){
+        solveRange(a, n, b, m, outX, outK, 0, a.length);
+    }
+
+    /*
+     * Same as above, with the systems split over the given number of threads.
+     */
+    public static void solveAll(long[] a, long[] n, long[] b, long[] m, long[] outX, long[] outK, int threads){
+        ForkJoinPool pool = new ForkJoinPool(Math.max(threads, 1));
+        int grain = Math.max(1 << 12, a.length / (8*Math.max(threads, 1)));
+        try {
+            pool.invoke(new Batch(a, n, b, m, outX, outK, 0, a.length, grain));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void solveRange(long[] a, long[] n, long[] b, long[] m, long[] outX, long[] outK, int lo, int hi){
+        long[] buf = new long[3];
+        for(int i = lo; i < hi; ++i){
+            if(solveLong(a[i], n[i], b[i], m[i], buf)){
+                outX[i] = buf[0];
+                outK[i] = buf[1];
+            } else {
+                long[] xk = solve(a[i], n[i], b[i], m[i]);
+                outX[i] = xk[0];
+                outK[i] = xk[1];
+            }
+        }
+    }
+
+    private static class Batch extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        long[] a, n, b, m, outX, outK;
+        int lo;
+        int hi;
+        int grain;
+
+        Batch(long[] a, long[] n, long[] b, long[] m, long[] outX, long[] outK, int lo, int hi, int grain){
+            this.a = a;
+            this.n = n;
+            this.b = b;
+            this.m = m;
+            this.outX = outX;
+            this.outK = outK;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute(){
+            if(hi - lo > grain){
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Batch(a, n, b, m, outX, outK, lo, mid, grain),
+                          new Batch(a, n, b, m, outX, outK, mid, hi, grain));
+                return;
+            }
+            solveRange(a, n, b, m, outX, outK, lo, hi);
+        }
+    }
+
+    /*
+     * Solves with longs only, using buf for the extended euclidean
+     * algorithm and then for the result.
+     *
+     * @param buf Gets [x, lcm(n, m)], [-1, -1] if there is no solution.
+     * @return False if lcm(n, m) doesn't fit in a long.
+     */
+    private static boolean solveLong(long a, long n, long b, long m, long[] buf){
+        extEuc(n, m, buf);
+        long g = buf[2];
+        a = Math.floorMod(a, n);
+        b = Math.floorMod(b, m);
+        if(a % g != b % g){
+            buf[0] = -1;
+            buf[1] = -1;
+            return true;
+        }
+        long mg = m / g;
+        long k = (n / g) * m;
+        if(Math.multiplyHigh(n / g, m) != 0 || k < 0){
+            return false;
+        }
+        //x = a + n*t, where (n/g)*t = (b-a)/g (mod m/g) and buf[0] inverts n/g.
+        long t = mulMod(Math.floorMod((b - a) / g, mg), Math.floorMod(buf[0], mg), mg);
+        buf[0] = a + n*t;
+        buf[1] = k;
+        return true;
+    }
+
+    /*
+     * @return a*b mod m for 0 <= a, b < m, without overflow. The 128 bit
+     *         product is taken with Math.multiplyHigh and reduced by
+     *         remainder128.
+     */
+    public static long mulMod(long a, long b, long m){
+        long hi = Math.multiplyHigh(a, b);
+        long lo = a * b;
+        if(hi == 0 && lo >= 0){
+            return lo % m;
+        }
+        return remainder128(hi, lo, m);
+    }
+
+    /*
+     * Divides the unsigned 128 bit number hi*2^64 + lo by v, with the
+     * long division of Hacker's Delight (divlu): v is shifted to have its
+     * top bit set and the quotient is found in two 32 bit digits, each
+     * estimated from the top words and corrected at most twice.
+     *
+     * @param hi The high word, unsigned and less than v.
+     * @param lo The low word, unsigned.
+     * @param v The divisor, v > 0.
+     * @return The remainder.
+     */
+    static long remainder128(long hi, long lo, long v){
+        final long b = 1L << 32;
+        int s = Long.numberOfLeadingZeros(v);
+        v <<= s;
+        long vn1 = v >>> 32;
+        long vn0 = v & 0xFFFFFFFFL;
+        long un32 = s == 0 ? hi : (hi << s) | (lo >>> (64 - s));
+        long un10 = lo << s;
+        long un1 = un10 >>> 32;
+        long un0 = un10 & 0xFFFFFFFFL;
+
+        long q1 = Long.divideUnsigned(un32, vn1);
+        long rhat = un32 - q1*vn1;
+        while(Long.compareUnsigned(q1, b) >= 0 || Long.compareUnsigned(q1*vn0, b*rhat + un1) > 0){
+            q1--;
+            rhat += vn1;
+            if(Long.compareUnsigned(rhat, b) >= 0){
+                break;
+            }
+        }
+        long un21 = un32*b + un1 - q1*v;
+
+        long q0 = Long.divideUnsigned(un21, vn1);
+        rhat = un21 - q0*vn1;
+        while(Long.compareUnsigned(q0, b) >= 0 || Long.compareUnsigned(q0*vn0, b*rhat + un0) > 0){
+            q0--;
+            rhat += vn1;
+            if(Long.compareUnsigned(rhat, b) >= 0){
+                break;
+            }
+        }
+        return (un21*b + un0 - q0*v) >>> s;
+    }
+}
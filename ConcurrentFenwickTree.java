@@ -0,0 +1,71 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+  The purpose of this class is to be a FenwickTree that many threads can update at the same
+  time. Updates are lock-free, each node of the tree is an atomic long.
+
+  Updates to small indices all hit the same few nodes near the top of the tree, so those
+  nodes get contended. To spread the load the tree can be split into stripes, full copies
+  of the tree picked by thread id, in one flat array with each stripe far from the others.
+  A prefix sum then adds up all stripes, so it costs O(stripes * logn). Sums read while
+  other threads add are weakly consistent: every add that finished before the sum started
+  is counted, adds running at the same time may or may not be.
+
+  @author Jakob Vyth (vyth@kth.se)
+  @author Carl Nyströmer (carlnys@kth.se)
+*/
+class ConcurrentFenwickTree {
+  private AtomicLongArray sums;
+  private int size;
+  private int mask;
+
+  /*
+   * Creates a Concurrent Fenwick Tree with a single stripe.
+   * @param n The number of elements in the underlying array. Must be > -1
+   */
+  public ConcurrentFenwickTree(int n) {
+    this(n, 1);
+  }
+
+  /*
+   * Creates a Concurrent Fenwick Tree.
+   * @param n The number of elements in the underlying array. Must be > -1
+   * @param stripes The number of copies to spread the updates over, rounded
+   *                up to a power of two. Around the number of writing
+   *                threads is a good choice for heavy contention.
+   */
+  public ConcurrentFenwickTree(int n, int stripes) {
+    int s = Integer.highestOneBit(Math.max(stripes, 1));
+    if (s < stripes) s <<= 1;
+    this.size = n+1;
+    this.mask = s-1;
+    this.sums = new AtomicLongArray(size*s);
+  }
+
+  /*
+   * Updates a value in the underlying array.
+   * @param i Index of the value to update
+   * @param d The value to add (for subtraction, add a negative value).
+   */
+  public void add(int i, long d) {
+    int base = ((int)Thread.currentThread().getId() & mask) * size;
+    for(; i < size; i += i&(-i)) {
+      sums.getAndAdd(base + i, d);
+    }
+  }
+
+  /*
+   * Calculates the prefix sum of the i first elements in the underlying array.
+   * @param i Number of elements where 0<i<n
+   * @return The prefix sum specified by i. If i =< 0, returns 0.
+   */
+  public long sum(int i) {
+    long sum = 0;
+    for (int base = 0; base <= mask*size; base += size) {
+      for(int j = i; j > 0; j -= j&(-j)){
+        sum += sums.get(base + j);
+      }
+    }
+    return sum;
+  }
+}
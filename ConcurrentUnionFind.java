@@ -0,0 +1,124 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * The purpose of this class is to be a UnionFind that many threads can
+ * use at the same time, without locks.
+ *
+ * The parent pointers live in an AtomicIntegerArray. A union links the
+ * root with the smaller index below the one with the larger index using
+ * compareAndSet, and retries if another thread changed that root first.
+ * Since a root only ever gets a larger parent, the pointers can be
+ * halved with compareAndSet during find without any coordination: a
+ * failed halving is just skipped.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class ConcurrentUnionFind {
+  //Pairs per task when unionAll splits a batch.
+  private static final int GRAIN = 1 << 14;
+  private final AtomicIntegerArray parents;
+
+  /*
+   * Creates a ConcurrentUnionFind data structure.
+   * @param n The number of initial disjoint sets. n > 0
+   */
+  public ConcurrentUnionFind(int n) {
+    parents = new AtomicIntegerArray(n);
+    for (int i = 0; i < n; ++i) {
+      parents.set(i, i);
+    }
+  }
+
+  /*
+   * Returns whether or not two elements lie in the same set. If another
+   * thread unions them at the same time either answer may be returned.
+   * @param x First element 0<x<n where n is the number of elements
+   * @param y Second element 0<y<n
+   * @return True if x and y in same set, false otherwise.
+   */
+  public boolean same(int x, int y) {
+    while (true) {
+      int xRoot = find(x);
+      int yRoot = find(y);
+      if (xRoot == yRoot) return true;
+      //If xRoot is still a root the sets were different after both finds.
+      if (parents.get(xRoot) == xRoot) return false;
+    }
+  }
+
+  /*
+   * Unionize the sets containing x and y.
+   * @param x An element in some set 0<x<n
+   * @param y A second element in some set 0<y<n
+   * @return True if this call joined two sets, false if x and y already
+   *         were in the same set.
+   */
+  public boolean union(int x, int y) {
+    while (true) {
+      int xRoot = find(x);
+      int yRoot = find(y);
+      if (xRoot == yRoot) return false;
+      if (xRoot < yRoot) {
+        if (parents.compareAndSet(xRoot, xRoot, yRoot)) return true;
+      } else {
+        if (parents.compareAndSet(yRoot, yRoot, xRoot)) return true;
+      }
+    }
+  }
+
+  /*
+   * Unionizes the sets of xs[i] and ys[i] for every i. The batch is split
+   * into tasks which run on the common fork-join pool.
+   * @param xs First elements of the pairs
+   * @param ys Second elements of the pairs, as many as in xs
+   */
+  public void unionAll(int[] xs, int[] ys) {
+    if (xs.length != ys.length) {
+      throw new IllegalArgumentException("xs and ys differ in length");
+    }
+    ForkJoinPool.commonPool().invoke(new Batch(xs, ys, 0, xs.length));
+  }
+
+  /*
+   * @return The root of the set containing x at some point during the call.
+   */
+  public int find(int x) {
+    while (true) {
+      int p = parents.get(x);
+      if (p == x) return x;
+      int g = parents.get(p);
+      if (p != g) parents.compareAndSet(x, p, g);
+      x = g;
+    }
+  }
+
+  private class Batch extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final int[] xs;
+    private final int[] ys;
+    private final int lo;
+    private final int hi;
+
+    Batch(int[] xs, int[] ys, int lo, int hi) {
+      this.xs = xs;
+      this.ys = ys;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo <= GRAIN) {
+        for (int i = lo; i < hi; ++i) {
+          union(xs[i], ys[i]);
+        }
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      invokeAll(new Batch(xs, ys, lo, mid), new Batch(xs, ys, mid, hi));
+    }
+  }
+}
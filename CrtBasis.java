@@ -0,0 +1,136 @@
+import java.math.*;
+
+/*
+ * The purpose of this class is to solve many systems
+ *      x = r[0] (mod m[0])
+ *      x = r[1] (mod m[1])
+ *      ...
+ * with the same pairwise coprime moduli, as in multi-modular arithmetic.
+ *
+ * This is done with Garner's algorithm. x is found in mixed radix form,
+ * x = v[0] + v[1]*m[0] + v[2]*m[0]*m[1] + ..., one digit per modulus, and
+ * every digit only needs arithmetic modulo its own m[i]. The inverses of
+ * m[0]*...*m[i-1] modulo m[i] and the moduli reduced modulo each other
+ * are computed once in the constructor, so a system takes O(k^2)
+ * multiplications and no extended euclidean algorithm.
+ *
+ * @author Carl Nyströmer
+ * @author Jakob Vyth
+ */
+public class CrtBasis{
+    long[] m;
+    //inv[i] = (m[0]*...*m[i-1])^-1 mod m[i].
+    long[] inv;
+    //red[i][j] = m[j] mod m[i], for j < i.
+    long[][] red;
+    //Product of all moduli, or -1 if it doesn't fit in a long.
+    long product;
+
+    /*
+     * @param m The moduli, positive and pairwise coprime.
+     */
+    public CrtBasis(long[] m){
+        int k = m.length;
+        this.m = m.clone();
+        inv = new long[k];
+        red = new long[k][];
+        long[] buf = new long[3];
+        for(int i = 0; i < k; ++i){
+            red[i] = new long[i];
+            long prefix = 1 % m[i];
+            for(int j = 0; j < i; ++j){
+                red[i][j] = m[j] % m[i];
+                prefix = ChineseRemainder.mulMod(prefix, red[i][j], m[i]);
+            }
+            ChineseRemainder.extEuc(prefix, m[i], buf);
+            if(buf[2] != 1 && m[i] != 1){
+                throw new IllegalArgumentException("The moduli are not pairwise coprime");
+            }
+            inv[i] = Math.floorMod(buf[0], m[i]);
+        }
+        product = 1;
+        for(int i = 0; i < k && product != -1; ++i){
+            if(Math.multiplyHigh(product, m[i]) != 0 || product * m[i] < 0){
+                product = -1;
+            } else {
+                product *= m[i];
+            }
+        }
+    }
+
+    /*
+     * @return True if the product of the moduli, and so every solution,
+     *         fits in a long.
+     */
+    public boolean fitsLong(){
+        return product != -1;
+    }
+
+    /*
+     * @return The product of the moduli.
+     */
+    public BigInteger getModulus(){
+        BigInteger ret = BigInteger.ONE;
+        for(long mi : m){
+            ret = ret.multiply(BigInteger.valueOf(mi));
+        }
+        return ret;
+    }
+
+    /*
+     * @param r The residues, one per modulus.
+     * @return The solution x, 0 <= x < m[0]*...*m[k-1].
+     * @throws ArithmeticException If the product of the moduli doesn't fit
+     *         in a long, see fitsLong and solveBig.
+     */
+    public long solve(long[] r){
+        if(product == -1){
+            throw new ArithmeticException("The product of the moduli overflows a long");
+        }
+        long[] v = digits(r);
+        long x = 0;
+        for(int i = v.length - 1; i >= 0; --i){
+            x = x * m[i] + v[i];
+        }
+        return x;
+    }
+
+    /*
+     * Same as above, but for any product of the moduli.
+     */
+    public BigInteger solveBig(long[] r){
+        long[] v = digits(r);
+        BigInteger x = BigInteger.ZERO;
+        for(int i = v.length - 1; i >= 0; --i){
+            x = x.multiply(BigInteger.valueOf(m[i])).add(BigInteger.valueOf(v[i]));
+        }
+        return x;
+    }
+
+    /*
+     * @return The mixed radix digits of the solution, 0 <= v[i] < m[i].
+     */
+    private long[] digits(long[] r){
+        int k = m.length;
+        long[] v = new long[k];
+        for(int i = 0; i < k; ++i){
+            long mi = m[i];
+            //The digits so far, evaluated modulo m[i] by Horner's rule.
+            long acc = 0;
+            for(int j = i - 1; j >= 0; --j){
+                acc = addMod(ChineseRemainder.mulMod(acc, red[i][j], mi), v[j] % mi, mi);
+            }
+            long diff = addMod(Math.floorMod(r[i], mi), acc == 0 ? 0 : mi - acc, mi);
+            v[i] = ChineseRemainder.mulMod(diff, inv[i], mi);
+        }
+        return v;
+    }
+
+    /*
+     * @return a+b mod m for 0 <= a, b < m. The sum may pass 2^63.
+     */
+    private static long addMod(long a, long b, long m){
+        long ret = a + b;
+        return ret < 0 || ret >= m ? ret - m : ret;
+    }
+}
@@ -1,12 +1,20 @@
+import java.util.Arrays;
+
 /*
   The purpose of this class is to calculate prefix sums of an 1-indexed array containing integers
   in an efficient manner, using a Fenwick Tree data structure. Updating a value in the
   underlying array and calculating a prefix sum takes O(logn) time.
+
+  A tree can be built from an array in O(n) time, and batches of updates or queries can be
+  done at once. Large batches are done in sorted index order so consecutive operations share
+  the same parts of sums, and batches comparable to n in size are done with one O(n) pass.
   
   @author Jakob Vyth (vyth@kth.se) 
   @author Carl Nyströmer (carlnys@kth.se)
 */
 class FenwickTree {
+  //Batches smaller than this are done one by one.
+  private static final int SORT_BATCH = 1 << 10;
   private long[] sums;
   private int size;
 
@@ -19,6 +27,21 @@ class FenwickTree {
     this.sums = new long[n+1];
   }
 
+  /*
+   * Creates a Fenwick Tree over the given values in O(n) time. Every node
+   * adds its partial sum to its parent once, instead of doing n updates.
+   * @param values The underlying array, values[i-1] being element i.
+   */
+  public FenwickTree(long[] values) {
+    this.size = values.length+1;
+    this.sums = new long[size];
+    System.arraycopy(values, 0, sums, 1, values.length);
+    for (int i = 1; i < size; ++i) {
+      int j = i + (i&(-i));
+      if (j < size) sums[j] += sums[i];
+    }
+  }
+
   /*
    * Updates a value in the underlying array.
    * @param i Index of the value to update
@@ -42,4 +65,98 @@ class FenwickTree {
     }
     return sum;
   }
+
+  /*
+   * Adds delta[k] to element idx[k] for every k.
+   * @param idx Indices of the values to update, 0<idx[k]<=n
+   * @param delta The values to add, as many as in idx
+   */
+  public void addAll(int[] idx, long[] delta) {
+    int k = idx.length;
+    if (k >= (size >> 4) && k >= SORT_BATCH) {
+      //Build a tree of the deltas in O(n) and add it to this one.
+      long[] tree = new long[size];
+      for (int i = 0; i < k; ++i) {
+        tree[idx[i]] += delta[i];
+      }
+      for (int i = 1; i < size; ++i) {
+        int j = i + (i&(-i));
+        if (j < size) tree[j] += tree[i];
+        sums[i] += tree[i];
+      }
+    } else if (k >= SORT_BATCH) {
+      long[] order = sortedOrder(idx);
+      for (int i = 0; i < k; ++i) {
+        int pos = (int)order[i];
+        add(idx[pos], delta[pos]);
+      }
+    } else {
+      for (int i = 0; i < k; ++i) {
+        add(idx[i], delta[i]);
+      }
+    }
+  }
+
+  /*
+   * Calculates many prefix sums at once.
+   * @param idx Numbers of elements, 0<idx[k]<=n
+   * @return The prefix sum specified by each idx[k], in the same order.
+   */
+  public long[] sumAll(int[] idx) {
+    int k = idx.length;
+    long[] ret = new long[k];
+    if (k >= (size >> 4) && k >= SORT_BATCH) {
+      //All prefix sums in O(n), sum(i) = sum(i - lowbit(i)) + sums[i].
+      long[] prefix = new long[size];
+      for (int i = 1; i < size; ++i) {
+        prefix[i] = prefix[i - (i&(-i))] + sums[i];
+      }
+      for (int i = 0; i < k; ++i) {
+        ret[i] = idx[i] > 0 ? prefix[idx[i]] : 0;
+      }
+    } else if (k >= SORT_BATCH) {
+      long[] order = sortedOrder(idx);
+      for (int i = 0; i < k; ++i) {
+        int pos = (int)order[i];
+        ret[pos] = sum(idx[pos]);
+      }
+    } else {
+      for (int i = 0; i < k; ++i) {
+        ret[i] = sum(idx[i]);
+      }
+    }
+    return ret;
+  }
+
+  /*
+   * @return The positions 0..k-1 of idx in the low 32 bits, sorted by idx.
+   */
+  private static long[] sortedOrder(int[] idx) {
+    long[] order = new long[idx.length];
+    for (int i = 0; i < idx.length; ++i) {
+      order[i] = (long)idx[i] << 32 | i;
+    }
+    Arrays.sort(order);
+    return order;
+  }
+
+  /*
+   * Finds the shortest prefix with a sum of at least the given value, by
+   * binary lifting over sums instead of binary searching with sum().
+   * Only correct if no value in the underlying array is negative.
+   * @param prefix The sum to reach
+   * @return The smallest i such that sum(i) >= prefix, 0 if prefix =< 0 and
+   *         n+1 if the whole array sums to less than prefix.
+   */
+  public int lowerBound(long prefix) {
+    if (prefix <= 0) return 0;
+    int pos = 0;
+    for (int step = Integer.highestOneBit(size - 1); step > 0; step >>= 1) {
+      if (pos + step < size && sums[pos + step] < prefix) {
+        pos += step;
+        prefix -= sums[pos];
+      }
+    }
+    return pos + 1;
+  }
 }
@@ -0,0 +1,67 @@
+/*
+  The purpose of this class is to calculate sums over rectangles of a 1-indexed grid of
+  integers, using a two dimensional Fenwick Tree. Updating a cell and calculating the sum
+  of a rectangle takes O(logn * logm) time.
+
+  The tree is stored row by row in one flat array, so a whole update or query walks a
+  single allocation instead of one array per row.
+
+  @author Jakob Vyth (vyth@kth.se)
+  @author Carl Nyströmer (carlnys@kth.se)
+*/
+class FenwickTree2D {
+  private long[] sums;
+  private int rows;
+  private int cols;
+
+  /*
+   * Creates a 2D Fenwick Tree where all cells are 0.
+   * @param n The number of rows. Must be > -1
+   * @param m The number of columns. Must be > -1
+   */
+  public FenwickTree2D(int n, int m) {
+    this.rows = n+1;
+    this.cols = m+1;
+    this.sums = new long[rows*cols];
+  }
+
+  /*
+   * Updates a cell in the underlying grid.
+   * @param x Row of the cell, 0<x<=n
+   * @param y Column of the cell, 0<y<=m
+   * @param d The value to add (for subtraction, add a negative value).
+   */
+  public void add(int x, int y, long d) {
+    for (; x < rows; x += x&(-x)) {
+      int row = x*cols;
+      for (int j = y; j < cols; j += j&(-j)) {
+        sums[row + j] += d;
+      }
+    }
+  }
+
+  /*
+   * Calculates the sum of the cells in rows 1..x and columns 1..y.
+   * @param x Number of rows, 0<=x<=n
+   * @param y Number of columns, 0<=y<=m
+   * @return The sum of the rectangle. If x or y =< 0, returns 0.
+   */
+  public long sum(int x, int y) {
+    long sum = 0;
+    for (; x > 0; x -= x&(-x)) {
+      int row = x*cols;
+      for (int j = y; j > 0; j -= j&(-j)) {
+        sum += sums[row + j];
+      }
+    }
+    return sum;
+  }
+
+  /*
+   * Calculates the sum of the cells in rows x1..x2 and columns y1..y2.
+   * @return The sum of the rectangle.
+   */
+  public long sum(int x1, int y1, int x2, int y2) {
+    return sum(x2, y2) - sum(x1-1, y2) - sum(x2, y1-1) + sum(x1-1, y1-1);
+  }
+}
@@ -24,9 +24,26 @@
  *   exception if there is no more data in the input, so it is generally
  *   a good idea to use hasMoreTokens() to check for end-of-file.
  *
+ * - new Kattio(System.in, System.out, true) reads raw bytes instead of
+ *   going through a BufferedReader, and parses ints, longs and doubles
+ *   straight from the byte buffer without creating any Strings. Tokens
+ *   are separated by any byte <= ' '. Do not mix the two modes on the
+ *   same stream.
+ *
+ * - new Kattio(Paths.get("edges.txt"), System.out) reads a local file
+ *   the same way, but parses straight from memory-mapped chunks of the
+ *   file instead of copying it through a read buffer. readInts() and
+ *   readLongs() fill primitive arrays in one call in every mode.
+ *
+ * - writeInt(), writeLong() and writeIntArray() format numbers straight
+ *   into a byte buffer, skipping String.valueOf and the charset encoder.
+ *   They can be mixed with print/println, but each switch from print to
+ *   a write-call costs a flush, so keep bulk output on one side.
+ *
  * @author: Kattis
  */
 
+import java.util.Arrays;
 import java.util.StringTokenizer;
 import java.io.BufferedReader;
 import java.io.BufferedOutputStream;
@@ -35,43 +52,139 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 class Kattio extends PrintWriter {
+    private static final int BUF_SIZE = 1 << 16;
+    // Size of each mapped region, files larger than this are mapped in chunks.
+    private static final long MAP_CHUNK = 1L << 30;
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     private BufferedReader r;
     private String line;
     private StringTokenizer st;
     private String token;
 
+    // Raw byte mode, used instead of r when set.
+    private boolean raw;
+    private InputStream in;
+    private byte[] buf;
+    // Memory-mapped mode, the current chunk replaces buf.
+    private FileChannel ch;
+    private MappedByteBuffer map;
+    private long mapPos;
+    private long fileSize;
+    private int bufLen;
+    private int bufPtr;
+    // Bytes of the last token read by readToken().
+    private byte[] tok;
+    // True while the line holding the last token has not been consumed.
+    private boolean lineOpen;
+    // Unread rest of a line left open by getLine(), read before the
+    // stream resumes. While inRest, buf holds it and alt* the stream.
+    private byte[] rest;
+    private boolean inRest;
+    private byte[] altBuf;
+    private MappedByteBuffer altMap;
+    private int altLen;
+    private int altPtr;
+
+    // Direct byte output, written to bos ahead of the PrintWriter chain.
+    private BufferedOutputStream bos;
+    private byte[] obuf;
+    private int obufLen;
+    // True if print/println may have left chars in the PrintWriter.
+    private boolean charsPending;
+
     public Kattio(InputStream i) {
-        super(new BufferedOutputStream(System.out));
+        this(new BufferedOutputStream(System.out));
         r = new BufferedReader(new InputStreamReader(i));
     }
     public Kattio(InputStream i, OutputStream o) {
-        super(new BufferedOutputStream(o));
+        this(new BufferedOutputStream(o));
         r = new BufferedReader(new InputStreamReader(i));
     }
+    public Kattio(InputStream i, OutputStream o, boolean raw) {
+        this(new BufferedOutputStream(o));
+        this.raw = raw;
+        if (raw) {
+            in = i;
+            buf = new byte[BUF_SIZE];
+            tok = new byte[64];
+        } else {
+            r = new BufferedReader(new InputStreamReader(i));
+        }
+    }
+    public Kattio(Path p, OutputStream o) throws IOException {
+        this(new BufferedOutputStream(o));
+        raw = true;
+        ch = FileChannel.open(p, StandardOpenOption.READ);
+        fileSize = ch.size();
+        tok = new byte[64];
+    }
+    private Kattio(BufferedOutputStream o) {
+        super(o);
+        bos = o;
+    }
 
     public boolean hasMoreTokens() {
+        if (raw) return skipSpace() >= 0;
         return peekToken() != null;
     }
 
     public int getInt() {
+        if (raw) {
+            long v = parseLong();
+            if (v != (int) v) throw new NumberFormatException("Value out of range: " + v);
+            return (int) v;
+        }
         return Integer.parseInt(nextToken());
     }
 
     public double getDouble() {
+        if (raw) return parseDouble();
         return Double.parseDouble(nextToken());
     }
 
     public long getLong() {
+        if (raw) return parseLong();
         return Long.parseLong(nextToken());
     }
 
     public String getWord() {
+        if (raw) {
+            int len = readToken();
+            return len < 0 ? null : new String(tok, 0, len);
+        }
         return nextToken();
     }
 
+    /*
+     * Reads the next n ints into dst[0..n-1].
+     */
+    public void readInts(int[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = getInt();
+        }
+    }
+
+    /*
+     * Reads the next n longs into dst[0..n-1].
+     */
+    public void readLongs(long[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = getLong();
+        }
+    }
+
     public String getLine() {
+            if (raw) return readLine();
             try { 
                 line = r.readLine();
             } catch (IOException e) {
@@ -82,6 +195,7 @@ class Kattio extends PrintWriter {
     
     public boolean ready(){
         try {
+        if (raw) return bufPtr < bufLen || (ch != null ? mapPos < fileSize : in.available() > 0);
         return r.ready();
         } catch (IOException  e) {
             System.err.println(e);
@@ -107,4 +221,381 @@ class Kattio extends PrintWriter {
         token = null;
         return ans;
     }
+
+    public void writeInt(int x) {
+        writeLong(x);
+    }
+
+    public void writeLong(long x) {
+        reserve(20);
+        if (x < 0) {
+            obuf[obufLen++] = '-';
+            if (x == Long.MIN_VALUE) {
+                // -x overflows, write the last digit separately.
+                writeDigits(-(x / 10));
+                obuf[obufLen++] = '8';
+                return;
+            }
+            x = -x;
+        }
+        writeDigits(x);
+    }
+
+    /*
+     * Writes a single ASCII character, typically a separator.
+     */
+    public void writeChar(char c) {
+        reserve(1);
+        obuf[obufLen++] = (byte) c;
+    }
+
+    /*
+     * Writes the values of a separated by sep, followed by a line break.
+     */
+    public void writeIntArray(int[] a, char sep) {
+        for (int i = 0; i < a.length; i++) {
+            if (i > 0) writeChar(sep);
+            writeLong(a[i]);
+        }
+        writeChar('\n');
+    }
+
+    /*
+     * Writes the values of a separated by sep, followed by a line break.
+     */
+    public void writeLongArray(long[] a, char sep) {
+        for (int i = 0; i < a.length; i++) {
+            if (i > 0) writeChar(sep);
+            writeLong(a[i]);
+        }
+        writeChar('\n');
+    }
+
+    @Override
+    public void write(int c) {
+        beforeChars();
+        super.write(c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        beforeChars();
+        super.write(cbuf, off, len);
+    }
+
+    @Override
+    public void write(String s, int off, int len) {
+        beforeChars();
+        super.write(s, off, len);
+    }
+
+    @Override
+    public void println() {
+        beforeChars();
+        super.println();
+    }
+
+    @Override
+    public void flush() {
+        spill();
+        super.flush();
+    }
+
+    @Override
+    public void close() {
+        spill();
+        super.close();
+        if (ch != null) {
+            try {
+                ch.close();
+            } catch (IOException e) {
+                System.err.println(e);
+            }
+        }
+    }
+
+    /*
+     * Makes room for n more bytes in obuf. Anything printed through the
+     * PrintWriter chain is flushed first to keep the output in order.
+     */
+    private void reserve(int n) {
+        if (charsPending) {
+            super.flush();
+            charsPending = false;
+        }
+        if (obuf == null) {
+            obuf = new byte[BUF_SIZE];
+        } else if (obuf.length - obufLen < n) {
+            spill();
+        }
+    }
+
+    private void writeDigits(long x) {
+        int end = obufLen + (x == 0 ? 1 : 0);
+        for (long t = x; t != 0; t /= 10) end++;
+        obufLen = end;
+        do {
+            obuf[--end] = (byte) ('0' + x % 10);
+            x /= 10;
+        } while (x != 0);
+    }
+
+    private void beforeChars() {
+        if (obufLen > 0) spill();
+        charsPending = true;
+    }
+
+    /*
+     * Hands the formatted bytes to the underlying stream.
+     */
+    private void spill() {
+        if (obufLen == 0) return;
+        try {
+            bos.write(obuf, 0, obufLen);
+        } catch (IOException e) {
+            setError();
+        }
+        obufLen = 0;
+    }
+
+    /*
+     * Refills the byte buffer, or maps the next chunk of the file.
+     * Returns false at end of input.
+     */
+    private boolean fill() {
+        if (inRest) {
+            // The held rest of a line is used up, go back to the stream.
+            swapInput();
+            inRest = false;
+            if (bufPtr < bufLen) return true;
+        }
+        if (ch != null) return mapNext();
+        try {
+            bufPtr = 0;
+            bufLen = in.read(buf, 0, buf.length);
+        } catch (IOException e) {
+            System.err.println(e);
+            bufLen = -1;
+        }
+        if (bufLen <= 0) {
+            bufLen = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private boolean mapNext() {
+        long len = Math.min(MAP_CHUNK, fileSize - mapPos);
+        if (len <= 0) return false;
+        try {
+            map = ch.map(FileChannel.MapMode.READ_ONLY, mapPos, len);
+        } catch (IOException e) {
+            System.err.println(e);
+            return false;
+        }
+        mapPos += len;
+        bufPtr = 0;
+        bufLen = (int) len;
+        return true;
+    }
+
+    private int readByte() {
+        if (bufPtr == bufLen && !fill()) return -1;
+        return (map != null ? map.get(bufPtr++) : buf[bufPtr++]) & 0xFF;
+    }
+
+    /*
+     * Skips whitespace and returns the first byte of the next token
+     * without consuming it, or -1 at end of input.
+     */
+    private int skipSpace() {
+        while (true) {
+            if (bufPtr == bufLen && !fill()) return -1;
+            int c = (map != null ? map.get(bufPtr) : buf[bufPtr]) & 0xFF;
+            if (c > ' ') {
+                lineOpen = true;
+                return c;
+            }
+            if (c == '\n') lineOpen = false;
+            bufPtr++;
+        }
+    }
+
+    /*
+     * Reads the next token into tok and returns its length, or -1 at
+     * end of input.
+     */
+    private int readToken() {
+        if (skipSpace() < 0) return -1;
+        int len = 0;
+        int c;
+        while ((c = readByte()) > ' ') {
+            if (len == tok.length) tok = Arrays.copyOf(tok, 2*len);
+            tok[len++] = (byte) c;
+        }
+        if (c >= 0) bufPtr--;
+        return len;
+    }
+
+    /*
+     * Parses a long directly from the byte buffer. The value is
+     * accumulated as a negative number so that Long.MIN_VALUE parses.
+     */
+    private long parseLong() {
+        int c = skipSpace();
+        if (c < 0) throw new NumberFormatException("No more tokens");
+        boolean neg = false;
+        if (c == '-' || c == '+') {
+            neg = c == '-';
+            bufPtr++;
+        }
+        long limit = neg ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long ret = 0;
+        int digits = 0;
+        while ((c = readByte()) >= '0' && c <= '9') {
+            int d = c - '0';
+            if (ret < (limit + d) / 10) throw new NumberFormatException("Value out of range");
+            ret = ret*10 - d;
+            digits++;
+        }
+        if (digits == 0 || c > ' ') throw new NumberFormatException("Not a number");
+        if (c >= 0) bufPtr--;
+        return neg ? ret : -ret;
+    }
+
+    /*
+     * Parses a double from the token bytes. Plain decimals with at most
+     * 15 significant digits and a small exponent are computed exactly
+     * from a long mantissa and a power of ten; anything else falls back
+     * to Double.parseDouble.
+     */
+    private double parseDouble() {
+        int len = readToken();
+        if (len < 0) throw new NumberFormatException("No more tokens");
+        int i = 0;
+        boolean neg = false;
+        if (tok[0] == '-' || tok[0] == '+') {
+            neg = tok[0] == '-';
+            i++;
+        }
+        long mant = 0;
+        int sig = 0;
+        int exp = 0;
+        boolean dot = false;
+        boolean any = false;
+        boolean truncated = false;
+        for (; i < len; i++) {
+            int c = tok[i];
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (sig < 15) {
+                    if (mant != 0 || c != '0') sig++;
+                    mant = mant*10 + (c - '0');
+                    if (dot) exp--;
+                } else {
+                    if (c != '0') truncated = true;
+                    if (!dot) exp++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (i < len && any && (tok[i] == 'e' || tok[i] == 'E')) {
+            int j = i + 1;
+            boolean eneg = false;
+            if (j < len && (tok[j] == '-' || tok[j] == '+')) {
+                eneg = tok[j] == '-';
+                j++;
+            }
+            int e = 0;
+            int start = j;
+            for (; j < len && tok[j] >= '0' && tok[j] <= '9' && e < 10000; j++) {
+                e = e*10 + (tok[j] - '0');
+            }
+            if (j > start) {
+                exp += eneg ? -e : e;
+                i = j;
+            }
+        }
+        if (i == len && any && !truncated && exp >= -22 && exp <= 22) {
+            double d = exp < 0 ? mant / POW10[-exp] : mant * POW10[exp];
+            return neg ? -d : d;
+        }
+        return Double.parseDouble(new String(tok, 0, len));
+    }
+
+    /*
+     * Reads the input up to the next line break. If a token has already
+     * been read from the current line, that line counts as consumed, like
+     * in the BufferedReader mode, and the tokens left on it are held and
+     * returned by later get-calls.
+     */
+    private String readLine() {
+        boolean hold;
+        if (inRest) {
+            // The stream is already at the start of a line.
+            swapInput();
+            inRest = false;
+            hold = true;
+        } else {
+            hold = lineOpen && holdRest();
+        }
+        lineOpen = false;
+        int len = 0;
+        int c;
+        while ((c = readByte()) >= 0 && c != '\n') {
+            if (len == tok.length) tok = Arrays.copyOf(tok, 2*len);
+            tok[len++] = (byte) c;
+        }
+        if (len > 0 && tok[len-1] == '\r') len--;
+        String ret = c < 0 && len == 0 ? null : new String(tok, 0, len);
+        if (hold) {
+            swapInput();
+            inRest = true;
+            lineOpen = true;
+        }
+        return ret;
+    }
+
+    /*
+     * Moves the rest of the open line, up to and including its line
+     * break, into alt. Returns false if no token is left on it.
+     */
+    private boolean holdRest() {
+        if (rest == null) rest = new byte[64];
+        int len = 0;
+        boolean any = false;
+        int c;
+        while ((c = readByte()) >= 0) {
+            if (len == rest.length) rest = Arrays.copyOf(rest, 2*len);
+            rest[len++] = (byte) c;
+            if (c > ' ') any = true;
+            if (c == '\n') break;
+        }
+        altBuf = rest;
+        altMap = null;
+        altLen = len;
+        altPtr = 0;
+        return any;
+    }
+
+    /*
+     * Exchanges the current input with the one in alt.
+     */
+    private void swapInput() {
+        byte[] b = buf;
+        buf = altBuf;
+        altBuf = b;
+        MappedByteBuffer m = map;
+        map = altMap;
+        altMap = m;
+        int t = bufLen;
+        bufLen = altLen;
+        altLen = t;
+        t = bufPtr;
+        bufPtr = altPtr;
+        altPtr = t;
+    }
 }
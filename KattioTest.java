@@ -0,0 +1,50 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Checks that getLine() in the raw and memory-mapped modes keeps the
+ * tokens left on a partly read line, like the BufferedReader mode.
+ *
+ * Run with java KattioTest, it throws on the first mismatch.
+ */
+class KattioTest {
+    private static final String INPUT = "1 2 3\nfirst line\n4\nsecond line\n5 six\n";
+
+    public static void main(String[] args) throws Exception {
+        byte[] bytes = INPUT.getBytes();
+        Path p = Files.createTempFile("kattio", ".txt");
+        try {
+            Files.write(p, bytes);
+            OutputStream out = new ByteArrayOutputStream();
+            check("reader", new Kattio(new ByteArrayInputStream(bytes), out));
+            check("raw", new Kattio(new ByteArrayInputStream(bytes), out, true));
+            check("mapped", new Kattio(p, out));
+        } finally {
+            Files.delete(p);
+        }
+        System.out.println("OK");
+    }
+
+    private static void check(String mode, Kattio io) {
+        expect(mode, 1, io.getInt());
+        expect(mode, "first line", io.getLine());
+        expect(mode, 2, io.getInt());
+        expect(mode, "4", io.getLine());
+        expect(mode, 3, io.getInt());
+        expect(mode, "second line", io.getLine());
+        expect(mode, 5, io.getInt());
+        expect(mode, null, io.getLine());
+        expect(mode, "six", io.getWord());
+        expect(mode, false, io.hasMoreTokens());
+        io.close();
+    }
+
+    private static void expect(String mode, Object want, Object got) {
+        if (want == null ? got != null : !want.equals(got)) {
+            throw new IllegalStateException(mode + ": expected " + want + ", got " + got);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+import java.util.*;
+
+/*
+ * The purpose of this class is to test primality and factorize numbers
+ * in the whole long range, beyond what a sieve can hold.
+ *
+ * Primality is tested with Miller-Rabin. The seven bases below are known
+ * to make it deterministic for every number below 2^64, so the answer is
+ * always right. Factorization uses Pollard's rho with Brent's cycle
+ * detection, multiplying 128 differences together before every gcd.
+ *
+ * All modular products use Montgomery multiplication: the numbers are
+ * kept as x*2^64 mod n, and a product is reduced with a few 64 bit
+ * multiplications, taking the high halves from Math.multiplyHigh,
+ * instead of a 128 bit division or BigInteger.
+ *
+ * @author Carl Nyströmer
+ * @author Jakob Vyth
+ */
+public class LongPrimes{
+    private static final long[] BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+    private static final int[] SMALL = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47};
+
+    /*
+     * @param n The number to check for primality.
+     * @return True if n is prime, false otherwise.
+     */
+    public static boolean isPrime(long n){
+        if(n < 2){
+            return false;
+        }
+        for(int p : SMALL){
+            if(n % p == 0){
+                return n == p;
+            }
+        }
+        if(n < 53*53){
+            return true;
+        }
+        return new Montgomery(n).isPrime();
+    }
+
+    /*
+     * @param n The number to factorize, n > 0.
+     * @return The prime factors of n in increasing order, repeated as many
+     *         times as they divide n.
+     */
+    public static long[] factor(long n){
+        return factor(n, null);
+    }
+
+    /*
+     * Same as above, but factors up to the limit of the sieve are read from
+     * its smallest prime factor table instead.
+     *
+     * @param sieve A sieve made in linear mode, or null.
+     */
+    public static long[] factor(long n, Primes sieve){
+        if(n < 1){
+            throw new IllegalArgumentException("Can only factorize positive numbers");
+        }
+        long[] out = new long[64];
+        int size = 0;
+        for(int p : SMALL){
+            while(n % p == 0){
+                out[size++] = p;
+                n /= p;
+            }
+        }
+        size = split(n, sieve, out, size);
+        Arrays.sort(out, 0, size);
+        return Arrays.copyOf(out, size);
+    }
+
+    /*
+     * Adds the prime factors of n, which has no factor below 53, to out.
+     *
+     * @return The new number of factors in out.
+     */
+    private static int split(long n, Primes sieve, long[] out, int size){
+        if(n == 1){
+            return size;
+        }
+        if(sieve != null && sieve.spf != null && n <= sieve.n){
+            int x = (int) n;
+            while(x > 1){
+                int p = sieve.smallestFactor(x);
+                out[size++] = p;
+                x /= p;
+            }
+            return size;
+        }
+        if(isPrime(n)){
+            out[size++] = n;
+            return size;
+        }
+        long d = new Montgomery(n).rho();
+        size = split(d, sieve, out, size);
+        return split(n / d, sieve, out, size);
+    }
+
+    /*
+     * Arithmetic modulo an odd n in Montgomery form, with R = 2^64.
+     */
+    private static class Montgomery{
+        long n;
+        //n * inv = 1 mod 2^64.
+        long inv;
+        //R mod n, which is 1 in Montgomery form.
+        long one;
+        //R^2 mod n, for converting into Montgomery form.
+        long r2;
+
+        Montgomery(long n){
+            this.n = n;
+            inv = n;
+            //Newton's iteration, each step doubles the correct low bits.
+            for(int i = 0; i < 5; ++i){
+                inv *= 2 - n*inv;
+            }
+            one = Long.remainderUnsigned(-n, n);
+            r2 = one;
+            for(int i = 0; i < 64; ++i){
+                r2 <<= 1;
+                if(r2 < 0 || r2 >= n){
+                    r2 -= n;
+                }
+            }
+        }
+
+        /*
+         * @return a*b/R mod n, for a, b < n.
+         */
+        long mul(long a, long b){
+            long lo = a*b;
+            long hi = Math.multiplyHigh(a, b);
+            //Only the low 64 bits of q*n are known to match lo, so they cancel.
+            long q = lo*inv;
+            long ret = hi - Math.multiplyHigh(q, n) - ((q >> 63) & n);
+            return ret < 0 ? ret + n : ret;
+        }
+
+        long toMont(long a){
+            return mul(a % n, r2);
+        }
+
+        long pow(long a, long e){
+            long ret = one;
+            while(e > 0){
+                if((e & 1) == 1){
+                    ret = mul(ret, a);
+                }
+                a = mul(a, a);
+                e >>= 1;
+            }
+            return ret;
+        }
+
+        boolean isPrime(){
+            long d = n - 1;
+            int s = Long.numberOfTrailingZeros(d);
+            d >>= s;
+            long minusOne = n - one;
+            for(long base : BASES){
+                long a = toMont(base);
+                if(a == 0){
+                    continue;
+                }
+                long x = pow(a, d);
+                if(x == one || x == minusOne){
+                    continue;
+                }
+                boolean composite = true;
+                for(int i = 1; i < s && composite; ++i){
+                    x = mul(x, x);
+                    composite = x != minusOne;
+                }
+                if(composite){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /*
+         * Pollard-Brent on x -> x^2 + c, for an odd composite n.
+         *
+         * @return A non-trivial factor of n.
+         */
+        long rho(){
+            for(long c = one; ; c = add(c, one)){
+                long y = toMont(2);
+                long x = y;
+                long g = 1;
+                long q = one;
+                long ys = y;
+                for(int r = 1; g == 1; r <<= 1){
+                    x = y;
+                    for(int i = 0; i < r; ++i){
+                        y = f(y, c);
+                    }
+                    for(int k = 0; k < r && g == 1; k += 128){
+                        ys = y;
+                        for(int i = 0; i < Math.min(128, r - k); ++i){
+                            y = f(y, c);
+                            q = mul(q, x > y ? x - y : y - x);
+                        }
+                        g = gcd(q, n);
+                    }
+                }
+                if(g == n){
+                    //The batch overshot, redo it one step at a time.
+                    do {
+                        ys = f(ys, c);
+                        g = gcd(x > ys ? x - ys : ys - x, n);
+                    } while(g == 1);
+                }
+                if(g != n){
+                    return g;
+                }
+            }
+        }
+
+        private long f(long y, long c){
+            return add(mul(y, y), c);
+        }
+
+        /*
+         * @return a+b mod n, for a, b < n. The sum may pass 2^63.
+         */
+        private long add(long a, long b){
+            long ret = a + b;
+            return ret < 0 || ret >= n ? ret - n : ret;
+        }
+    }
+
+    private static long gcd(long a, long b){
+        while(b != 0){
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
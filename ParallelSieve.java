@@ -0,0 +1,179 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * The purpose of this class is to find all primes up to a limit n in
+ * the billions, using several threads.
+ *
+ * The odd numbers up to n are kept as one bitmap, bit i standing for
+ * 2i+1 and set if it is prime, so the table takes n/16 bytes. The bitmap
+ * is cut into segments of 32 KiB, aligned to words, and the segments are
+ * sieved independently on a fork-join pool with the primes up to sqrt(n)
+ * (see SegmentedSieve). No two segments share a word, so the threads
+ * write the bitmap without any synchronization.
+ *
+ * The number of primes before every block of 16 words is stored as
+ * well, so counting the primes up to any x only reads at most 16 words.
+ *
+ * @author Carl Nyströmer
+ * @author Jakob Vyth
+ */
+public class ParallelSieve{
+    //Words per segment, 2^18 bits is 32 KiB.
+    private static final int SEGMENT_WORDS = 1 << 12;
+    private static final int BLOCK_WORDS = 16;
+    long n;
+    long[] bits;
+    //Primes among the odd numbers before block b, 2 not included.
+    long[] blockCount;
+    int[] basePrimes;
+
+    /*
+     * Sieves on one thread per available processor.
+     *
+     * @param n The upper limit, inclusive, below 2^38.
+     */
+    public ParallelSieve(long n){
+        this(n, Runtime.getRuntime().availableProcessors());
+    }
+
+    /*
+     * @param n The upper limit, inclusive, below 2^38.
+     * @param threads The number of worker threads.
+     */
+    public ParallelSieve(long n, int threads){
+        this.n = Math.max(n, 0);
+        long numBits = (this.n + 1) >>> 1;
+        long numWords = (numBits + 63) >>> 6;
+        if(numWords > Integer.MAX_VALUE - 8){
+            throw new IllegalArgumentException("n is too large for one bitmap");
+        }
+        bits = new long[(int) numWords];
+        int numBlocks = (bits.length + BLOCK_WORDS - 1) / BLOCK_WORDS;
+        blockCount = new long[numBlocks + 1];
+        basePrimes = SegmentedSieve.oddPrimesUpTo((int) Math.sqrt((double) this.n));
+        int numSegments = (bits.length + SEGMENT_WORDS - 1) / SEGMENT_WORDS;
+        ForkJoinPool pool = new ForkJoinPool(Math.max(threads, 1));
+        try {
+            pool.invoke(new Segments(0, numSegments));
+        } finally {
+            pool.shutdown();
+        }
+        for(int b = 0; b < numBlocks; ++b){
+            blockCount[b+1] += blockCount[b];
+        }
+    }
+
+    /*
+     * Get whether or not x is a prime.
+     *
+     * @param x The number to check for primality, x <= n.
+     * @return True if prime, False if not prime.
+     */
+    public boolean isPrime(long x){
+        if(x < 3 || (x & 1) == 0){
+            return x == 2;
+        }
+        long b = x >>> 1;
+        return (bits[(int) (b >>> 6)] & 1L << b) != 0;
+    }
+
+    /*
+     * @return The number of primes up to n.
+     */
+    public long numPrimes(){
+        return pi(n);
+    }
+
+    /*
+     * @param x A number, at most n.
+     * @return The number of primes up to and including x.
+     */
+    public long pi(long x){
+        if(x < 2){
+            return 0;
+        }
+        //Odd numbers up to x are the bits below (x+1)/2, plus the prime 2.
+        long k = (x + 1) >>> 1;
+        int word = (int) (k >>> 6);
+        int block = word / BLOCK_WORDS;
+        long count = 1 + blockCount[block];
+        for(int w = block * BLOCK_WORDS; w < word; ++w){
+            count += Long.bitCount(bits[w]);
+        }
+        if((k & 63) != 0){
+            count += Long.bitCount(bits[word] & ((1L << k) - 1));
+        }
+        return count;
+    }
+
+    /*
+     * @return The number of primes in [lo, hi), for hi <= n+1.
+     */
+    public long countPrimes(long lo, long hi){
+        if(hi <= lo){
+            return 0;
+        }
+        return pi(hi - 1) - pi(lo - 1);
+    }
+
+    /*
+     * Sieves the segments lo..hi-1 and counts the primes of their blocks.
+     */
+    private class Segments extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        int lo;
+        int hi;
+
+        Segments(int lo, int hi){
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute(){
+            if(hi - lo > 1){
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Segments(lo, mid), new Segments(mid, hi));
+                return;
+            }
+            if(hi > lo){
+                sieve(lo);
+            }
+        }
+
+        private void sieve(int segment){
+            int w0 = segment * SEGMENT_WORDS;
+            int w1 = Math.min(w0 + SEGMENT_WORDS, bits.length);
+            //Bit b stands for 2b+1, so the segment covers [start, end).
+            long start = 128L * w0 + 1;
+            long end = 128L * w1 + 1;
+            for(int p : basePrimes){
+                if((long) p * p >= end){
+                    break;
+                }
+                long m = Math.max((long) p * p, (start + p - 1) / p * p);
+                if((m & 1) == 0){
+                    m += p;
+                }
+                for(long b = m >>> 1; b < (end >>> 1); b += p){
+                    bits[(int) (b >>> 6)] |= 1L << b;
+                }
+            }
+            for(int w = w0; w < w1; ++w){
+                bits[w] = ~bits[w];
+            }
+            if(w0 == 0){
+                //1 isn't prime.
+                bits[0] &= ~1L;
+            }
+            long numBits = (n + 1) >>> 1;
+            if(w1 == bits.length && (numBits & 63) != 0){
+                bits[w1 - 1] &= (1L << numBits) - 1;
+            }
+            for(int w = w0; w < w1; ++w){
+                blockCount[w / BLOCK_WORDS + 1] += Long.bitCount(bits[w]);
+            }
+        }
+    }
+}
@@ -5,6 +5,12 @@ import java.util.*;
  *
  * This is done using Erathostenes Sieve. 
  *
+ * There is also a linear sieve mode (Euler's sieve), which visits every
+ * composite exactly once and stores the smallest prime factor of every
+ * number up to n. With that table a number is factorized by following
+ * smallest factors, in O(log x) steps and without any trial division,
+ * which the arithmetic functions below build on. It costs an int per
+ * number instead of a bit, so it is meant for n up to about 10^8.
  *
  * @author Carl Nyströmer
  * @author Jakob Vyth
@@ -12,6 +18,10 @@ import java.util.*;
 public class Primes{
     BitSet primes;
     int n;
+    //Smallest prime factor of every number, only in linear mode.
+    int[] spf;
+    //All primes up to n in increasing order, made on first use if not linear.
+    int[] primeList;
 
     /*
      * Creates an object which holds an array which indicates 
@@ -20,22 +30,62 @@ public class Primes{
      * @param n The upper limit.
      */
     public Primes(int n){
+        this(n, false);
+    }
+
+    /*
+     * @param n The upper limit, below Integer.MAX_VALUE in linear mode.
+     * @param linear True to use the linear sieve and keep the smallest
+     *               prime factor table, needed by factorize, phi,
+     *               numDivisors and mobius.
+     */
+    public Primes(int n, boolean linear){
         this.n = n;
+        if(linear){
+            linearSieve();
+        } else {
+            eratosthenes();
+        }
+    }
+
+    private void eratosthenes(){
         int rootN = (int) Math.sqrt(n);
-        primes = new BitSet(n+1);
+        primes = new BitSet(n == Integer.MAX_VALUE ? n : n+1);
         int currPrime = 2;
         primes.set(0);
         primes.set(1);
         int previousPrime = 1;
         while(currPrime <= rootN){
-            for(int mult = currPrime*(previousPrime+1); mult <= n; mult += currPrime){
-                primes.set(mult);
+            //long, since mult passes Integer.MAX_VALUE when n is close to it.
+            for(long mult = (long) currPrime*(previousPrime+1); mult <= n; mult += currPrime){
+                primes.set((int) mult);
             }
             previousPrime = currPrime;
             currPrime = primes.nextClearBit(currPrime+1);
         }
     }
 
+    private void linearSieve(){
+        spf = new int[n+1];
+        int[] list = new int[n < 17 ? 8 : (int) (1.26*n/Math.log(n)) + 1];
+        int count = 0;
+        for(int i = 2; i <= n; ++i){
+            if(spf[i] == 0){
+                spf[i] = i;
+                list[count++] = i;
+            }
+            //i*p gets p as smallest factor for every prime p up to spf[i].
+            for(int j = 0; j < count; ++j){
+                int p = list[j];
+                if(p > spf[i] || p > n / i){
+                    break;
+                }
+                spf[i*p] = p;
+            }
+        }
+        primeList = Arrays.copyOf(list, count);
+    }
+
     /*
      * Get whether or not x is a prime. 
      *
@@ -43,6 +93,9 @@ public class Primes{
      * @return True if prime, False if not prime.
      */
     public boolean isPrime(int x){
+        if(spf != null){
+            return x >= 2 && spf[x] == x;
+        }
         return !primes.get(x);
     }
 
@@ -51,6 +104,122 @@ public class Primes{
      * limit specified in the constructor.
      */
     public int numPrimes(){
+        if(primeList != null){
+            return primeList.length;
+        }
         return n-primes.cardinality()+1;
     }
+
+    /*
+     * @return All primes up to the limit in increasing order. The array is
+     *         shared, it must not be changed.
+     */
+    public int[] primes(){
+        if(primeList == null){
+            int[] list = new int[numPrimes()];
+            int p = 1;
+            for(int i = 0; i < list.length; ++i){
+                p = primes.nextClearBit(p+1);
+                list[i] = p;
+            }
+            primeList = list;
+        }
+        return primeList;
+    }
+
+    /*
+     * @param x A number 0<x<=n.
+     * @return The smallest prime factor of x, 0 for x = 1.
+     */
+    public int smallestFactor(int x){
+        checkLinear();
+        return spf[x];
+    }
+
+    /*
+     * Factorizes x without allocating anything. The arrays need room for
+     * the distinct primes of x, 10 is enough for any int.
+     *
+     * @param x A number 0<x<=n.
+     * @param outPrimes Gets the distinct prime factors in increasing order.
+     * @param outExps Gets the exponent of each of them.
+     * @return The number of distinct prime factors.
+     */
+    public int factorize(int x, int[] outPrimes, int[] outExps){
+        checkLinear();
+        int k = 0;
+        while(x > 1){
+            int p = spf[x];
+            int e = 0;
+            do {
+                x /= p;
+                e++;
+            } while(spf[x] == p);
+            outPrimes[k] = p;
+            outExps[k] = e;
+            k++;
+        }
+        return k;
+    }
+
+    /*
+     * @param x A number 0<x<=n.
+     * @return Euler's totient of x, the number of 1..x coprime to x.
+     */
+    public int phi(int x){
+        checkLinear();
+        int ret = x;
+        while(x > 1){
+            int p = spf[x];
+            ret = ret / p * (p-1);
+            do {
+                x /= p;
+            } while(spf[x] == p);
+        }
+        return ret;
+    }
+
+    /*
+     * @param x A number 0<x<=n.
+     * @return The number of positive divisors of x.
+     */
+    public int numDivisors(int x){
+        checkLinear();
+        int ret = 1;
+        while(x > 1){
+            int p = spf[x];
+            int e = 0;
+            do {
+                x /= p;
+                e++;
+            } while(spf[x] == p);
+            ret *= e+1;
+        }
+        return ret;
+    }
+
+    /*
+     * @param x A number 0<x<=n.
+     * @return The Möbius function of x: 0 if a square divides x, otherwise
+     *         1 or -1 for an even or odd number of prime factors.
+     */
+    public int mobius(int x){
+        checkLinear();
+        int ret = 1;
+        while(x > 1){
+            int p = spf[x];
+            x /= p;
+            if(spf[x] == p){
+                return 0;
+            }
+            ret = -ret;
+        }
+        return ret;
+    }
+
+    private void checkLinear(){
+        if(spf == null){
+            throw new IllegalStateException("Needs the linear sieve, see Primes(n, true)");
+        }
+    }
 }
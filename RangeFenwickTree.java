@@ -0,0 +1,57 @@
+/*
+  The purpose of this class is to add a value to a whole range of an 1-indexed array and
+  to calculate sums over ranges of it, both in O(logn) time.
+
+  Two Fenwick Trees are used. Adding d to the elements l..r adds d*i - d*(l-1) to the prefix
+  sum of every i in l..r and d*(r-l+1) to every later one, so the first tree keeps the
+  coefficient of i and the second the constant part, each changed only at l and r+1.
+
+  @author Jakob Vyth (vyth@kth.se)
+  @author Carl Nyströmer (carlnys@kth.se)
+*/
+class RangeFenwickTree {
+  private FenwickTree factors;
+  private FenwickTree offsets;
+
+  /*
+   * Creates a Range Fenwick Tree where all elements are 0.
+   * @param n The number of elements in the underlying array. Must be > -1
+   */
+  public RangeFenwickTree(int n) {
+    factors = new FenwickTree(n);
+    offsets = new FenwickTree(n);
+  }
+
+  /*
+   * Adds a value to every element in a range.
+   * @param l Index of the first element, 0<l
+   * @param r Index of the last element, l<=r<=n
+   * @param d The value to add (for subtraction, add a negative value).
+   */
+  public void add(int l, int r, long d) {
+    factors.add(l, d);
+    factors.add(r+1, -d);
+    offsets.add(l, d*(l-1));
+    offsets.add(r+1, -d*r);
+  }
+
+  /*
+   * Calculates the prefix sum of the i first elements in the underlying array.
+   * @param i Number of elements where 0<=i<=n
+   * @return The prefix sum specified by i. If i =< 0, returns 0.
+   */
+  public long sum(int i) {
+    if (i <= 0) return 0;
+    return factors.sum(i)*i - offsets.sum(i);
+  }
+
+  /*
+   * Calculates the sum of the elements l..r.
+   * @param l Index of the first element, 0<l
+   * @param r Index of the last element, l<=r<=n
+   * @return The sum of the range.
+   */
+  public long sum(int l, int r) {
+    return sum(r) - sum(l-1);
+  }
+}
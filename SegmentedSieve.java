@@ -0,0 +1,192 @@
+import java.util.*;
+
+/*
+ * The purpose of this class is to find the primes in a range [lo, hi) of
+ * longs, without sieving everything from 0.
+ *
+ * This is done using a segmented Erathostenes Sieve. Only odd numbers are
+ * stored, one bit each, and the range is sieved in blocks of 32 KiB so
+ * the block being crossed off stays in the L1 cache. Every base prime up
+ * to sqrt(hi) remembers where its next odd multiple is, so moving on to
+ * the next block costs no division. Counting or listing the primes
+ * needs memory for one block and the base primes only.
+ *
+ * hi may be at most 2^62, so that the base primes fit in an int.
+ *
+ * @author Carl Nyströmer
+ * @author Jakob Vyth
+ */
+public class SegmentedSieve{
+    //Odd numbers per block, 2^18 bits is 32 KiB.
+    private static final int BLOCK_BITS = 1 << 18;
+    long lo;
+    long hi;
+    //Odd primes up to sqrt(hi).
+    int[] basePrimes;
+
+    /*
+     * @param lo The lower limit, inclusive.
+     * @param hi The upper limit, exclusive, at most 2^62.
+     */
+    public SegmentedSieve(long lo, long hi){
+        if(hi > 1L << 62){
+            throw new IllegalArgumentException("hi must be at most 2^62");
+        }
+        this.lo = Math.max(lo, 0);
+        this.hi = hi;
+        long top = Math.max(hi - 1, 0);
+        long root = (long) Math.sqrt((double) top);
+        while(root * root > top){
+            root--;
+        }
+        while((root+1) * (root+1) <= top){
+            root++;
+        }
+        basePrimes = oddPrimesUpTo((int) root);
+    }
+
+    /*
+     * @return The number of primes in the range.
+     */
+    public long count(){
+        long count = lo <= 2 && 2 < hi ? 1 : 0;
+        Blocks blocks = new Blocks();
+        while(blocks.next()){
+            long[] words = blocks.words;
+            int full = blocks.bits >>> 6;
+            for(int i = 0; i < full; ++i){
+                count += Long.bitCount(~words[i]);
+            }
+            if((blocks.bits & 63) != 0){
+                count += Long.bitCount(~words[full] & ((1L << blocks.bits) - 1));
+            }
+        }
+        return count;
+    }
+
+    /*
+     * @return The primes in the range in increasing order.
+     */
+    public long[] primes(){
+        long[] list = new long[16];
+        int size = 0;
+        if(lo <= 2 && 2 < hi){
+            list[size++] = 2;
+        }
+        Blocks blocks = new Blocks();
+        while(blocks.next()){
+            for(int w = 0; w << 6 < blocks.bits; ++w){
+                long free = ~blocks.words[w];
+                if((w + 1) << 6 > blocks.bits){
+                    free &= (1L << blocks.bits) - 1;
+                }
+                while(free != 0){
+                    int b = (w << 6) + Long.numberOfTrailingZeros(free);
+                    free &= free - 1;
+                    if(size == list.length){
+                        list = Arrays.copyOf(list, 2*size);
+                    }
+                    list[size++] = blocks.start + 2L*b;
+                }
+            }
+        }
+        return Arrays.copyOf(list, size);
+    }
+
+    /*
+     * Sieves the odd numbers of the range one block at a time. After
+     * next(), bit b of words is clear if start + 2b is prime, for the
+     * first bits bits.
+     */
+    class Blocks{
+        long start;
+        long[] words = new long[BLOCK_BITS >>> 6];
+        int bits;
+        //Bit of the next odd multiple of each active base prime, counted
+        //from start. Below p, so an int is enough.
+        int[] offset = new int[basePrimes.length];
+        //Base primes whose square is below the current block's end.
+        int active;
+
+        Blocks(){
+            start = (Math.max(lo, 3) | 1) - 2L*BLOCK_BITS;
+            bits = BLOCK_BITS;
+        }
+
+        /*
+         * @return False if the whole range has been sieved.
+         */
+        boolean next(){
+            start += 2L*bits;
+            if(start >= hi){
+                return false;
+            }
+            for(int i = 0; i < active; ++i){
+                offset[i] -= bits;
+            }
+            bits = (int) Math.min(BLOCK_BITS, (hi - start + 1) >>> 1);
+            long end = start + 2L*bits;
+            while(active < basePrimes.length && (long) basePrimes[active] * basePrimes[active] < end){
+                long p = basePrimes[active];
+                long m = Math.max(p * p, (start + p - 1) / p * p);
+                if((m & 1) == 0){
+                    m += p;
+                }
+                offset[active++] = (int) ((m - start) >>> 1);
+            }
+            Arrays.fill(words, 0, (bits + 63) >>> 6, 0);
+            for(int i = 0; i < active; ++i){
+                int p = basePrimes[i];
+                long b = offset[i];
+                for(; b < bits; b += p){
+                    words[(int) (b >>> 6)] |= 1L << b;
+                }
+                offset[i] = (int) b;
+            }
+            return true;
+        }
+    }
+
+    /*
+     * @return The odd primes up to r, r < 2^31.
+     */
+    static int[] oddPrimesUpTo(int r){
+        if(r < 3){
+            return new int[0];
+        }
+        if(r < 1 << 16){
+            boolean[] composite = new boolean[r+1];
+            int[] list = new int[r];
+            int count = 0;
+            for(int i = 3; i <= r; i += 2){
+                if(!composite[i]){
+                    list[count++] = i;
+                    if(i <= r / i){
+                        for(int j = i*i; j <= r; j += 2*i){
+                            composite[j] = true;
+                        }
+                    }
+                }
+            }
+            return Arrays.copyOf(list, count);
+        }
+        //Counted first, so the only big array is the exact int list.
+        SegmentedSieve s = new SegmentedSieve(3, (long) r + 1);
+        int[] list = new int[(int) s.count()];
+        int size = 0;
+        Blocks blocks = s.new Blocks();
+        while(blocks.next()){
+            for(int w = 0; w << 6 < blocks.bits; ++w){
+                long free = ~blocks.words[w];
+                if((w + 1) << 6 > blocks.bits){
+                    free &= (1L << blocks.bits) - 1;
+                }
+                while(free != 0){
+                    list[size++] = (int) (blocks.start + 2L*Long.numberOfTrailingZeros(free) + 128L*w);
+                    free &= free - 1;
+                }
+            }
+        }
+        return list;
+    }
+}
@@ -4,24 +4,91 @@
  * by an unique integer in the same range of the number of elements. 
  * The UnionFind data structure makes makes both operations run in O(logn).
  *
+ * The members of every set are linked into a ring through next[], so a
+ * set can be listed without any extra structure. In rollback mode the
+ * paths are never compressed and every union is pushed on an undo
+ * stack, so unions can be taken back in reverse order, as offline
+ * dynamic connectivity needs.
+ *
  * @author Jakob Vyth (vyth@kth.se) 
  * @author Carl Nyströmer (carlnys@kth.se)
  */
 public class UnionFind {
   private int[] parents;
   private int[] size;
+  //Next member in the ring of each set.
+  private int[] next;
+  private int count;
+  private boolean rollback;
+  //Roots that were linked below another root, null unless in rollback mode.
+  private int[] undo;
+  private int undoSize;
 
   /*
    * Creates a UnionFind data structure.
    * @param n The number of initial disjoint sets. n > 0
    */
   public UnionFind(int n) {
+    this(n, false);
+  }
+
+  /*
+   * Creates a UnionFind data structure.
+   * @param n The number of initial disjoint sets. n > 0
+   * @param rollback True to allow unions to be undone with rollback(),
+   *                 at the price of finds taking O(logn) every time.
+   */
+  public UnionFind(int n, boolean rollback) {
     parents = new int[n];
     size = new int[n];
+    next = new int[n];
+    count = n;
+    this.rollback = rollback;
+    if (rollback) undo = new int[n];
     for (int i = 0; i < n ; ++i) {
       parents[i] = i;
       size[i] = 1;
+      next[i] = i;
+    }
+  }
+
+  /*
+   * @return The number of disjoint sets.
+   */
+  public int componentCount() {
+    return count;
+  }
+
+  /*
+   * @param x An element in some set 0<x<n
+   * @return The number of elements in the set containing x.
+   */
+  public int componentSize(int x) {
+    return size[find(x)];
+  }
+
+  /*
+   * Steps through the ring of the set containing x. Starting at x and
+   * calling next until x comes back visits every member once.
+   * @param x An element in some set 0<x<n
+   * @return The member after x in its set.
+   */
+  public int next(int x) {
+    return next[x];
+  }
+
+  /*
+   * @param x An element in some set 0<x<n
+   * @return All elements in the set containing x, starting with x.
+   */
+  public int[] members(int x) {
+    int[] ret = new int[componentSize(x)];
+    int y = x;
+    for (int i = 0; i < ret.length; ++i) {
+      ret[i] = y;
+      y = next[y];
     }
+    return ret;
   }
 
   /*
@@ -46,18 +113,71 @@ public class UnionFind {
     int yRoot = find(y);
     if (xRoot == yRoot) return xRoot;
     if (size[xRoot] > size[yRoot]) {
-      parents[yRoot] = xRoot;
-      size[xRoot] += size[yRoot];
+      link(yRoot, xRoot);
       return xRoot;
     } else {
-      parents[xRoot] = yRoot;
-      size[yRoot] += size[xRoot];
+      link(xRoot, yRoot);
       return yRoot;
     }
   }
 
+  /*
+   * @return The number of unions done so far, to be passed to rollback()
+   *         later. Unions of elements already in the same set don't count.
+   */
+  public int snapshot() {
+    return undoSize;
+  }
+
+  /*
+   * Undoes the unions made after the snapshot was taken, newest first.
+   * Only available in rollback mode.
+   * @param snapshot A value returned by snapshot()
+   */
+  public void rollback(int snapshot) {
+    if (!rollback) throw new IllegalStateException("Not in rollback mode");
+    while (undoSize > snapshot) {
+      int child = undo[--undoSize];
+      int root = parents[child];
+      parents[child] = child;
+      size[root] -= size[child];
+      swapNext(child, root);
+      count++;
+    }
+  }
+
+  private void link(int child, int root) {
+    parents[child] = root;
+    size[root] += size[child];
+    //Swapping the successors splices the two rings into one, and
+    //swapping them again splits them apart.
+    swapNext(child, root);
+    count--;
+    if (rollback) undo[undoSize++] = child;
+  }
+
+  private void swapNext(int x, int y) {
+    int tmp = next[x];
+    next[x] = next[y];
+    next[y] = tmp;
+  }
+
+  /*
+   * Finds the root of x with path halving: every node on the way is
+   * pointed at its grandparent. This is iterative, so long chains can't
+   * overflow the stack, and it keeps the trees as flat as full path
+   * compression does over a sequence of operations. In rollback mode
+   * the paths are left alone, union by size keeps them O(logn) long.
+   */
   private int find(int x) {
-    if (parents[x] != x) parents[x] = find(parents[x]);
-    return parents[x];
+    if (rollback) {
+      while (parents[x] != x) x = parents[x];
+      return x;
+    }
+    while (parents[x] != x) {
+      parents[x] = parents[parents[x]];
+      x = parents[x];
+    }
+    return x;
   }
 }
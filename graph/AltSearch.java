@@ -0,0 +1,197 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+ * The purpose of this class is to find the shortest path between two
+ * given nodes while settling as few nodes as possible.
+ *
+ * This is done by A* search with ALT (A*, landmarks and the triangle
+ * inequality) heuristics. A few landmark nodes are picked once and the
+ * distances from and to every landmark are computed with Dijkstra. For
+ * any landmark L, d(v,t) >= d(L,t) - d(L,v) and d(v,t) >= d(v,L) - d(t,L),
+ * which gives a consistent lower bound that steers the search towards t.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class AltSearch{
+    Graph g;
+    int[] landmarks;
+    //fromL[k][v] = d(landmarks[k], v), toL[k][v] = d(v, landmarks[k]).
+    long[][] fromL;
+    long[][] toL;
+    IndexedHeap tentative;
+    long[] dist;
+    int[] parents;
+    //Heuristic of each touched node, computed once per query.
+    long[] h;
+    int[] touched;
+    int numTouched;
+    int s;
+    int settled;
+
+    /*
+     * Picks landmarks by farthest point selection: each new landmark is
+     * the reachable node furthest from the landmarks chosen so far.
+     *
+     * @param g The graph to query, edge weight have to be non-negative.
+     * @param numLandmarks The number of landmarks, typically 8 to 16.
+     */
+    public AltSearch(Graph g, int numLandmarks){
+        this.g = g;
+        int n = g.size();
+        Graph rev = g.reverse();
+        numLandmarks = Math.max(1, Math.min(numLandmarks, n));
+        landmarks = new int[numLandmarks];
+        fromL = new long[numLandmarks][];
+        toL = new long[numLandmarks][];
+        long[] closest = new long[n];
+        Arrays.fill(closest, Long.MAX_VALUE);
+        long[] start = new Dijkstra(g, 0).dist;
+        int next = farthest(start, start);
+        for(int k = 0; k < numLandmarks; k++){
+            landmarks[k] = next;
+            fromL[k] = new Dijkstra(g, next).dist;
+            toL[k] = new Dijkstra(rev, next).dist;
+            for(int v = 0; v < n; v++){
+                closest[v] = Math.min(closest[v], fromL[k][v]);
+            }
+            next = farthest(closest, fromL[0]);
+        }
+        tentative = new IndexedHeap(n);
+        dist = new long[n];
+        parents = new int[n];
+        h = new long[n];
+        touched = new int[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        Arrays.fill(parents, -1);
+    }
+
+    /*
+     * @param s The index of the starting node.
+     * @param t The index of the target node.
+     * @return The length of the shortest path from s to t,
+     *         Long.MAX_VALUE if there is none.
+     */
+    public long query(int s, int t){
+        reset();
+        this.s = s;
+        long hs = heuristic(s, t);
+        if(hs == Long.MAX_VALUE){
+            return Long.MAX_VALUE;
+        }
+        touched[numTouched++] = s;
+        dist[s] = 0;
+        h[s] = hs;
+        tentative.update(s, hs);
+        int current;
+        int neigh;
+        long newDist;
+        while(!tentative.isEmpty()){
+            current = tentative.poll();
+            settled++;
+            if(current == t){
+                return dist[t];
+            }
+            for(int e = g.offset[current]; e < g.offset[current+1]; e++){
+                neigh = g.to[e];
+                newDist = dist[current] + g.weight[e];
+                if(newDist < dist[neigh]){
+                    if(dist[neigh] == Long.MAX_VALUE){
+                        h[neigh] = heuristic(neigh, t);
+                        touched[numTouched++] = neigh;
+                    }
+                    dist[neigh] = newDist;
+                    parents[neigh] = current;
+                    if(h[neigh] != Long.MAX_VALUE){
+                        tentative.update(neigh, newDist + h[neigh]);
+                    }
+                }
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /*
+     * @param t The target node of the last query.
+     * @return The shortest path from s to t found by the last query.
+     *         If no such path exists, return null.
+     */
+    public LinkedList<Integer> shortestPath(int t){
+        if(dist[t] == Long.MAX_VALUE){
+            return null;
+        }
+        LinkedList<Integer> path = new LinkedList<>();
+        while(t != -1){
+            path.push(t);
+            t = parents[t];
+        }
+        return path;
+    }
+
+    /*
+     * @return The number of nodes settled by the last query.
+     */
+    public int getSettled(){
+        return settled;
+    }
+
+    /*
+     * @return The landmark nodes.
+     */
+    public int[] getLandmarks(){
+        return landmarks;
+    }
+
+    /*
+     * @return A lower bound of d(v,t), or Long.MAX_VALUE if some landmark
+     *         proves that t can't be reached from v.
+     */
+    private long heuristic(int v, int t){
+        long best = 0;
+        for(int k = 0; k < landmarks.length; k++){
+            long lv = fromL[k][v];
+            long lt = fromL[k][t];
+            long vl = toL[k][v];
+            long tl = toL[k][t];
+            //L reaches v but not t, or t reaches L but v doesn't.
+            if((lv != Long.MAX_VALUE && lt == Long.MAX_VALUE)
+               || (tl != Long.MAX_VALUE && vl == Long.MAX_VALUE)){
+                return Long.MAX_VALUE;
+            }
+            if(lv != Long.MAX_VALUE && lt - lv > best){
+                best = lt - lv;
+            }
+            if(tl != Long.MAX_VALUE && vl - tl > best){
+                best = vl - tl;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * @return The node with the largest finite d, preferring nodes reachable
+     *         from the first landmark. Falls back to node 0.
+     */
+    private int farthest(long[] d, long[] reach){
+        int best = 0;
+        long bestDist = -1;
+        for(int v = 0; v < d.length; v++){
+            if(reach[v] != Long.MAX_VALUE && d[v] != Long.MAX_VALUE && d[v] > bestDist){
+                best = v;
+                bestDist = d[v];
+            }
+        }
+        return best;
+    }
+
+    private void reset(){
+        for(int i = 0; i < numTouched; i++){
+            dist[touched[i]] = Long.MAX_VALUE;
+            parents[touched[i]] = -1;
+        }
+        numTouched = 0;
+        settled = 0;
+        tentative.clear();
+    }
+}
@@ -1,4 +1,6 @@
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /*
  * The purpose of this class is to find the shortest path
@@ -12,7 +14,7 @@ import java.util.*;
 public class BellmanFord{
     int[] parent;
     long[] dist;
-    ArrayList<LinkedList<Edge>> edges;
+    Graph g;
     int s;
 
 
@@ -25,67 +27,187 @@ public class BellmanFord{
      * @param source The index of the starting node.   
      */    
     public BellmanFord(ArrayList<LinkedList<Edge>> edges, int source){
+        this(new Graph(edges), source);
+    }
+
+    /*
+     * Same as above, but runs on a CSR graph. The relaxation rounds stop
+     * as soon as a round changes nothing.
+     *
+     * @param g The graph, edge weight can be negative.
+     * @param source The index of the starting node.
+     */
+    public BellmanFord(Graph g, int source){
         this.s = source;
-        this.edges = edges;
-        int n = edges.size();
+        this.g = g;
+        int n = g.size();
         parent = new int[n];
         dist = new long[n];
         Arrays.fill(dist, Long.MAX_VALUE);        
         dist[source] = 0;
-        Edge e;
         long potentialBetterDist;
-        for(int i = 0; i < n; ++i){
+        boolean changed = true;
+        for(int i = 0; i < n && changed; ++i){
+            changed = false;
             for(int from = 0; from < n; ++from){
-                Iterator<Edge> it = edges.get(from).iterator();
-                while(it.hasNext()){
-                    e = it.next();      
-                    potentialBetterDist = dist[from] + e.weight;
-                    if(dist[from] == Long.MAX_VALUE){
-                        continue;
-                    }
-                    if(potentialBetterDist < dist[e.to]){
-                        dist[e.to] = potentialBetterDist;
-                        parent[e.to] = from;
+                if(dist[from] == Long.MAX_VALUE){
+                    continue;
+                }
+                for(int e = g.offset[from]; e < g.offset[from+1]; ++e){
+                    potentialBetterDist = dist[from] + g.weight[e];
+                    if(potentialBetterDist < dist[g.to[e]]){
+                        dist[g.to[e]] = potentialBetterDist;
+                        parent[g.to[e]] = from;
+                        changed = true;
                     } 
                 }
             }
         }
-        
+        if(!changed){
+            return;
+        }
+
+        int[] seeds = new int[n];
+        int numSeeds = 0;
         for(int from = 0; from < n; ++from){
-            Iterator<Edge> it = edges.get(from).iterator();
-            while(it.hasNext()){
-                e = it.next();      
-                if(dist[from] == Long.MIN_VALUE || dist[from] == Long.MAX_VALUE){
-                    continue;
-                } else { 
-                    potentialBetterDist = dist[from] + e.weight;
-                }
-                if(potentialBetterDist < dist[e.to]){
-                    dist[from] = Long.MIN_VALUE;
-                    markInf(from);
+            if(dist[from] == Long.MAX_VALUE){
+                continue;
+            }
+            for(int e = g.offset[from]; e < g.offset[from+1]; ++e){
+                potentialBetterDist = dist[from] + g.weight[e];
+                if(potentialBetterDist < dist[g.to[e]]){
+                    seeds[numSeeds++] = from;
+                    break;
                 } 
             }
         }
+        markInf(seeds, numSeeds);
     } 
 
-    private void markInf(int from){
-        boolean[] visited = new boolean[edges.size()];
-        Stack<Integer> stack = new Stack<>(); 
-        stack.push(from);
+    /*
+     * Same as above, but every relaxation round is split over threads.
+     * Each thread owns a range of end nodes and computes their new
+     * distance from the previous round's distances over the incoming
+     * edges, so no two threads write the same entry. Worth it for very
+     * large graphs only.
+     *
+     * @param g The graph, edge weight can be negative.
+     * @param source The index of the starting node.
+     * @param threads The number of worker threads.
+     */
+    public BellmanFord(Graph g, int source, int threads){
+        this.s = source;
+        this.g = g;
+        int n = g.size();
+        Graph rev = g.reverse();
+        parent = new int[n];
+        long[] prev = new long[n];
+        long[] next = new long[n];
+        Arrays.fill(prev, Long.MAX_VALUE);
+        prev[source] = 0;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        int grain = Math.max(1024, n / (8*threads));
+        boolean changed = true;
+        try {
+            for(int i = 0; i < n && changed; ++i){
+                changed = pool.invoke(new Round(rev, prev, next, 0, n, grain));
+                long[] tmp = prev;
+                prev = next;
+                next = tmp;
+            }
+            dist = prev;
+            if(!changed){
+                return;
+            }
+            //Nodes still improving after n rounds lie on or behind a negative cycle.
+            pool.invoke(new Round(rev, prev, next, 0, n, grain));
+        } finally {
+            pool.shutdown();
+        }
+        int[] seeds = new int[n];
+        int numSeeds = 0;
+        for(int v = 0; v < n; ++v){
+            if(next[v] < prev[v]){
+                seeds[numSeeds++] = v;
+            }
+        }
+        markInf(seeds, numSeeds);
+    }
+
+    /*
+     * Sets the distance of every node reachable from the seeds to
+     * Long.MIN_VALUE, in one traversal sharing a single visited array.
+     */
+    private void markInf(int[] seeds, int numSeeds){
+        boolean[] visited = new boolean[g.size()];
+        int[] stack = new int[g.size()];
+        int top = 0;
+        for(int i = 0; i < numSeeds; ++i){
+            if(!visited[seeds[i]]){
+                visited[seeds[i]] = true;
+                stack[top++] = seeds[i];
+            }
+        }
         int current;
         int neigh;
-        while(!stack.empty()){
-            current = stack.pop();    
-            visited[current] = true;
-            LinkedList<Edge> neighs = edges.get(current);
-            Iterator<Edge> it = neighs.iterator();
-            while(it.hasNext()){
-                neigh = it.next().to;
+        while(top > 0){
+            current = stack[--top];
+            dist[current] = Long.MIN_VALUE;
+            for(int e = g.offset[current]; e < g.offset[current+1]; ++e){
+                neigh = g.to[e];
                 if(!visited[neigh]){
-                    dist[neigh] = Long.MIN_VALUE;
-                    stack.push(neigh);
+                    visited[neigh] = true;
+                    stack[top++] = neigh;
+                }
+            }
+        }
+    }
+
+    /*
+     * One relaxation round for the end nodes lo..hi-1, returns true if
+     * any of their distances changed.
+     */
+    private class Round extends RecursiveTask<Boolean>{
+        private static final long serialVersionUID = 1L;
+        Graph rev;
+        long[] prev;
+        long[] next;
+        int lo;
+        int hi;
+        int grain;
+
+        Round(Graph rev, long[] prev, long[] next, int lo, int hi, int grain){
+            this.rev = rev;
+            this.prev = prev;
+            this.next = next;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Boolean compute(){
+            if(hi - lo > grain){
+                int mid = (lo + hi) >>> 1;
+                Round left = new Round(rev, prev, next, lo, mid, grain);
+                left.fork();
+                boolean right = new Round(rev, prev, next, mid, hi, grain).compute();
+                return left.join() | right;
+            }
+            boolean changed = false;
+            for(int v = lo; v < hi; ++v){
+                long best = prev[v];
+                for(int e = rev.offset[v]; e < rev.offset[v+1]; ++e){
+                    int from = rev.to[e];
+                    if(prev[from] != Long.MAX_VALUE && prev[from] + rev.weight[e] < best){
+                        best = prev[from] + rev.weight[e];
+                        parent[v] = from;
+                    }
                 }
+                next[v] = best;
+                changed |= best < prev[v];
             }
+            return changed;
         }
     }
 
@@ -0,0 +1,167 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+ * The purpose of this class is to find the shortest path between two
+ * given nodes without settling the whole graph.
+ *
+ * This is done by running Dijkstras algorithm forwards from s and
+ * backwards from t at the same time, always expanding the side with the
+ * smaller queue. The search stops once the two smallest queued distances
+ * add up to at least the best path seen so far. Like DijkstraQuery, an
+ * instance keeps its arrays between queries and only resets the nodes
+ * it touched.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class BidirectionalDijkstra{
+    Graph g;
+    Graph rev;
+    Side fwd;
+    Side bwd;
+    int s;
+    int t;
+    long best;
+    //The best path uses the edge meetFrom -> meetTo.
+    int meetFrom;
+    int meetTo;
+    int settled;
+
+    /*
+     * @param g The graph to query, edge weight have to be non-negative.
+     */
+    public BidirectionalDijkstra(Graph g){
+        this.g = g;
+        this.rev = g.reverse();
+        fwd = new Side(g.size());
+        bwd = new Side(g.size());
+    }
+
+    /*
+     * @param s The index of the starting node.
+     * @param t The index of the target node.
+     * @return The length of the shortest path from s to t,
+     *         Long.MAX_VALUE if there is none.
+     */
+    public long query(int s, int t){
+        this.s = s;
+        this.t = t;
+        fwd.reset();
+        bwd.reset();
+        settled = 0;
+        meetFrom = -1;
+        meetTo = -1;
+        if(s == t){
+            best = 0;
+            return 0;
+        }
+        best = Long.MAX_VALUE;
+        fwd.seed(s);
+        bwd.seed(t);
+        while(!fwd.heap.isEmpty() && !bwd.heap.isEmpty()){
+            if(fwd.heap.minKey() + bwd.heap.minKey() >= best){
+                break;
+            }
+            if(fwd.heap.size() <= bwd.heap.size()){
+                expand(g, fwd, bwd, true);
+            } else {
+                expand(rev, bwd, fwd, false);
+            }
+        }
+        return best;
+    }
+
+    /*
+     * @return The shortest path found by the last query, from s to t.
+     *         If no such path exists, return null.
+     */
+    public LinkedList<Integer> shortestPath(){
+        if(best == Long.MAX_VALUE){
+            return null;
+        }
+        LinkedList<Integer> path = new LinkedList<>();
+        if(meetFrom < 0){
+            path.add(s);
+            return path;
+        }
+        for(int v = meetFrom; v != -1; v = fwd.parents[v]){
+            path.push(v);
+        }
+        for(int v = meetTo; v != -1; v = bwd.parents[v]){
+            path.add(v);
+        }
+        return path;
+    }
+
+    /*
+     * @return The number of nodes settled by the last query.
+     */
+    public int getSettled(){
+        return settled;
+    }
+
+    private void expand(Graph graph, Side side, Side other, boolean forward){
+        int current = side.heap.poll();
+        settled++;
+        long d = side.dist[current];
+        for(int e = graph.offset[current]; e < graph.offset[current+1]; e++){
+            int neigh = graph.to[e];
+            long newDist = d + graph.weight[e];
+            if(newDist < side.dist[neigh]){
+                side.relax(neigh, newDist, current);
+            }
+            long otherDist = other.dist[neigh];
+            if(otherDist != Long.MAX_VALUE && newDist + otherDist < best){
+                best = newDist + otherDist;
+                meetFrom = forward ? current : neigh;
+                meetTo = forward ? neigh : current;
+            }
+        }
+    }
+
+    /*
+     * The state of one search direction.
+     */
+    private static class Side{
+        IndexedHeap heap;
+        long[] dist;
+        //Next node towards the start of this side, -1 for the start.
+        int[] parents;
+        int[] touched;
+        int numTouched;
+
+        Side(int n){
+            heap = new IndexedHeap(n);
+            dist = new long[n];
+            parents = new int[n];
+            touched = new int[n];
+            Arrays.fill(dist, Long.MAX_VALUE);
+            Arrays.fill(parents, -1);
+        }
+
+        void reset(){
+            for(int i = 0; i < numTouched; i++){
+                dist[touched[i]] = Long.MAX_VALUE;
+                parents[touched[i]] = -1;
+            }
+            numTouched = 0;
+            heap.clear();
+        }
+
+        void seed(int v){
+            touched[numTouched++] = v;
+            dist[v] = 0;
+            heap.update(v, 0);
+        }
+
+        void relax(int v, long d, int parent){
+            if(dist[v] == Long.MAX_VALUE){
+                touched[numTouched++] = v;
+            }
+            dist[v] = d;
+            parents[v] = parent;
+            heap.update(v, d);
+        }
+    }
+}
@@ -0,0 +1,523 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+ * The purpose of this class is to answer shortest path queries on a
+ * static graph much faster than Dijkstra, after a one-time preprocessing.
+ *
+ * This is done with Contraction Hierarchies. Nodes are contracted one at
+ * a time in order of importance (edge difference plus number of already
+ * contracted neighbours, with lazy updates). When a node v is removed,
+ * a shortcut u -> w is added for every path u -> v -> w that no other
+ * path of at most the same length (a witness) replaces. A query is a
+ * bidirectional Dijkstra that only follows edges towards more important
+ * nodes, which settles a few hundred nodes even on large road networks.
+ *
+ * The preprocessed hierarchy can be written to and read from a compact
+ * binary file so it only has to be built once.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class ContractionHierarchy{
+    private static final int MAGIC = 0x43484731;
+    //Bound the work of a single witness search, lower when only
+    //estimating the priority of a node.
+    private static final int ESTIMATE_SETTLE_LIMIT = 50;
+    private static final int CONTRACT_SETTLE_LIMIT = 500;
+
+    int n;
+    //Contraction order, rank[v] = position of v in the order.
+    int[] rank;
+    //Upward edges u -> w with rank[w] > rank[u], in CSR form.
+    int[] upOffset;
+    int[] upTo;
+    long[] upWeight;
+    //Downward edges u -> w with rank[u] > rank[w], stored at w as
+    //edges from the more important node u.
+    int[] downOffset;
+    int[] downFrom;
+    long[] downWeight;
+
+    //Query state.
+    private IndexedHeap fwdHeap;
+    private IndexedHeap bwdHeap;
+    private long[] fwdDist;
+    private long[] bwdDist;
+    private int[] touched;
+    private int numTouched;
+
+    /*
+     * Preprocesses the graph.
+     *
+     * @param nb A datastructure which keeps the list of neighbors for each
+     *             node in the graph, edge weight have to be non-negative.
+     */
+    public ContractionHierarchy(ArrayList<LinkedList<Edge>> nb){
+        this(new Graph(nb));
+    }
+
+    /*
+     * Same as above, but takes a CSR graph.
+     *
+     * @param g The graph, edge weight have to be non-negative.
+     */
+    public ContractionHierarchy(Graph g){
+        new Builder(g).build();
+        initQuery();
+    }
+
+    private ContractionHierarchy(){
+    }
+
+    /*
+     * @param s The index of the starting node.
+     * @param t The index of the target node.
+     * @return The length of the shortest path from s to t,
+     *         Long.MAX_VALUE if there is none.
+     */
+    public long query(int s, int t){
+        for(int i = 0; i < numTouched; i++){
+            fwdDist[touched[i]] = Long.MAX_VALUE;
+            bwdDist[touched[i]] = Long.MAX_VALUE;
+        }
+        numTouched = 0;
+        fwdHeap.clear();
+        bwdHeap.clear();
+        touched[numTouched++] = s;
+        fwdDist[s] = 0;
+        fwdHeap.update(s, 0);
+        if(bwdDist[t] == Long.MAX_VALUE && t != s){
+            touched[numTouched++] = t;
+        }
+        bwdDist[t] = 0;
+        bwdHeap.update(t, 0);
+        long best = Long.MAX_VALUE;
+        while(!fwdHeap.isEmpty() || !bwdHeap.isEmpty()){
+            long fMin = fwdHeap.isEmpty() ? Long.MAX_VALUE : fwdHeap.minKey();
+            long bMin = bwdHeap.isEmpty() ? Long.MAX_VALUE : bwdHeap.minKey();
+            if(Math.min(fMin, bMin) >= best){
+                break;
+            }
+            if(fMin <= bMin){
+                best = settle(fwdHeap, fwdDist, bwdDist, upOffset, upTo, upWeight, best);
+            } else {
+                best = settle(bwdHeap, bwdDist, fwdDist, downOffset, downFrom, downWeight, best);
+            }
+        }
+        return best;
+    }
+
+    /*
+     * @return The number of nodes in the graph.
+     */
+    public int size(){
+        return n;
+    }
+
+    /*
+     * @return The number of upward and downward edges, shortcuts included.
+     */
+    public int edgeCount(){
+        return upOffset[n] + downOffset[n];
+    }
+
+    /*
+     * Writes the hierarchy to a binary file.
+     *
+     * @param p The file to write.
+     */
+    public void write(Path p) throws IOException{
+        try(DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(p), 1 << 16))){
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            for(int v = 0; v < n; v++){
+                out.writeInt(rank[v]);
+            }
+            writeCsr(out, upOffset, upTo, upWeight);
+            writeCsr(out, downOffset, downFrom, downWeight);
+        }
+    }
+
+    /*
+     * Reads a hierarchy written by write().
+     *
+     * @param p The file to read.
+     * @return The hierarchy, ready for queries.
+     */
+    public static ContractionHierarchy read(Path p) throws IOException{
+        try(DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(p), 1 << 16))){
+            if(in.readInt() != MAGIC){
+                throw new IOException("Not a contraction hierarchy file: " + p);
+            }
+            ContractionHierarchy ch = new ContractionHierarchy();
+            int n = in.readInt();
+            ch.n = n;
+            ch.rank = new int[n];
+            for(int v = 0; v < n; v++){
+                ch.rank[v] = in.readInt();
+            }
+            ch.upOffset = new int[n+1];
+            ch.upTo = readCsr(in, ch.upOffset);
+            ch.upWeight = readWeights(in, ch.upOffset[n]);
+            ch.downOffset = new int[n+1];
+            ch.downFrom = readCsr(in, ch.downOffset);
+            ch.downWeight = readWeights(in, ch.downOffset[n]);
+            ch.initQuery();
+            return ch;
+        }
+    }
+
+    private void initQuery(){
+        fwdHeap = new IndexedHeap(n);
+        bwdHeap = new IndexedHeap(n);
+        fwdDist = new long[n];
+        bwdDist = new long[n];
+        touched = new int[2*n];
+        Arrays.fill(fwdDist, Long.MAX_VALUE);
+        Arrays.fill(bwdDist, Long.MAX_VALUE);
+    }
+
+    private long settle(IndexedHeap heap, long[] dist, long[] otherDist,
+                        int[] offset, int[] to, long[] weight, long best){
+        int current = heap.poll();
+        long d = dist[current];
+        if(otherDist[current] != Long.MAX_VALUE && d + otherDist[current] < best){
+            best = d + otherDist[current];
+        }
+        for(int e = offset[current]; e < offset[current+1]; e++){
+            int neigh = to[e];
+            long newDist = d + weight[e];
+            if(newDist < dist[neigh]){
+                if(fwdDist[neigh] == Long.MAX_VALUE && bwdDist[neigh] == Long.MAX_VALUE){
+                    touched[numTouched++] = neigh;
+                }
+                dist[neigh] = newDist;
+                heap.update(neigh, newDist);
+            }
+        }
+        return best;
+    }
+
+    private static void writeCsr(DataOutputStream out, int[] offset, int[] to, long[] weight)
+            throws IOException{
+        int n = offset.length - 1;
+        for(int v = 0; v < n; v++){
+            out.writeInt(offset[v+1] - offset[v]);
+        }
+        for(int e = 0; e < offset[n]; e++){
+            out.writeInt(to[e]);
+        }
+        for(int e = 0; e < offset[n]; e++){
+            out.writeLong(weight[e]);
+        }
+    }
+
+    private static int[] readCsr(DataInputStream in, int[] offset) throws IOException{
+        int n = offset.length - 1;
+        for(int v = 0; v < n; v++){
+            offset[v+1] = offset[v] + in.readInt();
+        }
+        int[] to = new int[offset[n]];
+        for(int e = 0; e < to.length; e++){
+            to[e] = in.readInt();
+        }
+        return to;
+    }
+
+    private static long[] readWeights(DataInputStream in, int m) throws IOException{
+        long[] weight = new long[m];
+        for(int e = 0; e < m; e++){
+            weight[e] = in.readLong();
+        }
+        return weight;
+    }
+
+    /*
+     * Holds the shrinking graph during preprocessing. Every node keeps
+     * growable lists of its outgoing and incoming edges. When a node is
+     * contracted it is removed from its neighbours' lists but keeps its
+     * own, so every edge ends up in the lists of the endpoint that was
+     * contracted first.
+     */
+    private class Builder{
+        int[][] outTo;
+        long[][] outW;
+        int[] outDeg;
+        int[][] inFrom;
+        long[][] inW;
+        int[] inDeg;
+        int[] contractedNeighbours;
+        //Targets of the current witness search, marked with the source.
+        int[] target;
+        int settleLimit;
+        //Witness search state.
+        IndexedHeap heap;
+        long[] dist;
+        int[] touched;
+        int numTouched;
+        //Shortcuts found by the last simulated or real contraction.
+        int[] scFrom = new int[16];
+        int[] scTo = new int[16];
+        long[] scW = new long[16];
+        int numShortcuts;
+
+        Builder(Graph g){
+            n = g.size();
+            outTo = new int[n][];
+            outW = new long[n][];
+            outDeg = new int[n];
+            inFrom = new int[n][];
+            inW = new long[n][];
+            inDeg = new int[n];
+            int[] inCount = new int[n];
+            for(int e = 0; e < g.edgeCount(); e++){
+                inCount[g.to[e]]++;
+            }
+            for(int v = 0; v < n; v++){
+                int out = g.offset[v+1] - g.offset[v];
+                outTo[v] = new int[Math.max(out, 2)];
+                outW[v] = new long[Math.max(out, 2)];
+                inFrom[v] = new int[Math.max(inCount[v], 2)];
+                inW[v] = new long[Math.max(inCount[v], 2)];
+            }
+            for(int v = 0; v < n; v++){
+                for(int e = g.offset[v]; e < g.offset[v+1]; e++){
+                    if(g.to[e] != v){
+                        addEdge(v, g.to[e], g.weight[e]);
+                    }
+                }
+            }
+            contractedNeighbours = new int[n];
+            target = new int[n];
+            Arrays.fill(target, -1);
+            heap = new IndexedHeap(n);
+            dist = new long[n];
+            touched = new int[n];
+            Arrays.fill(dist, Long.MAX_VALUE);
+            rank = new int[n];
+        }
+
+        void build(){
+            IndexedHeap order = new IndexedHeap(n);
+            for(int v = 0; v < n; v++){
+                order.update(v, priority(v));
+            }
+            int next = 0;
+            while(!order.isEmpty()){
+                int v = order.poll();
+                //Lazy update, the priority may have grown since it was queued.
+                long p = priority(v);
+                if(!order.isEmpty() && p > order.minKey()){
+                    order.update(v, p);
+                    continue;
+                }
+                contract(v);
+                rank[v] = next++;
+                //Only the contracted neighbours term is updated here, the
+                //rest is recomputed lazily when the node is polled.
+                for(int i = 0; i < outDeg[v]; i++){
+                    int w = outTo[v][i];
+                    contractedNeighbours[w]++;
+                    order.update(w, order.getKey(w) + 1);
+                }
+                for(int i = 0; i < inDeg[v]; i++){
+                    int u = inFrom[v][i];
+                    contractedNeighbours[u]++;
+                    order.update(u, order.getKey(u) + 1);
+                }
+            }
+            extract();
+        }
+
+        long priority(int v){
+            settleLimit = ESTIMATE_SETTLE_LIMIT;
+            findShortcuts(v);
+            return (long) numShortcuts - outDeg[v] - inDeg[v] + contractedNeighbours[v];
+        }
+
+        void contract(int v){
+            settleLimit = CONTRACT_SETTLE_LIMIT;
+            findShortcuts(v);
+            for(int i = 0; i < numShortcuts; i++){
+                addEdge(scFrom[i], scTo[i], scW[i]);
+            }
+            for(int i = 0; i < outDeg[v]; i++){
+                removeIn(outTo[v][i], v);
+            }
+            for(int i = 0; i < inDeg[v]; i++){
+                removeOut(inFrom[v][i], v);
+            }
+        }
+
+        void removeIn(int w, int u){
+            for(int j = 0; j < inDeg[w]; j++){
+                if(inFrom[w][j] == u){
+                    inDeg[w]--;
+                    inFrom[w][j] = inFrom[w][inDeg[w]];
+                    inW[w][j] = inW[w][inDeg[w]];
+                    return;
+                }
+            }
+        }
+
+        void removeOut(int u, int w){
+            for(int j = 0; j < outDeg[u]; j++){
+                if(outTo[u][j] == w){
+                    outDeg[u]--;
+                    outTo[u][j] = outTo[u][outDeg[u]];
+                    outW[u][j] = outW[u][outDeg[u]];
+                    return;
+                }
+            }
+        }
+
+        /*
+         * Collects in scFrom/scTo/scW the shortcuts needed if v was removed.
+         */
+        void findShortcuts(int v){
+            numShortcuts = 0;
+            long maxOut = 0;
+            for(int i = 0; i < outDeg[v]; i++){
+                maxOut = Math.max(maxOut, outW[v][i]);
+            }
+            for(int i = 0; i < inDeg[v]; i++){
+                int u = inFrom[v][i];
+                long uv = inW[v][i];
+                int targets = 0;
+                for(int j = 0; j < outDeg[v]; j++){
+                    int w = outTo[v][j];
+                    if(w != u && target[w] != u){
+                        target[w] = u;
+                        targets++;
+                    }
+                }
+                if(targets == 0) continue;
+                witnessSearch(u, v, uv + maxOut, targets);
+                for(int j = 0; j < outDeg[v]; j++){
+                    int w = outTo[v][j];
+                    target[w] = -1;
+                    if(w == u) continue;
+                    long via = uv + outW[v][j];
+                    if(dist[w] > via){
+                        addShortcut(u, w, via);
+                    }
+                }
+            }
+        }
+
+        /*
+         * Dijkstra from u in the remaining graph without v, stopped when
+         * all targets are settled, at distance limit, or after settleLimit
+         * settled nodes. Nodes it didn't reach keep distance
+         * Long.MAX_VALUE, which only adds unneeded shortcuts, never
+         * wrong ones.
+         */
+        void witnessSearch(int u, int v, long limit, int targets){
+            for(int i = 0; i < numTouched; i++){
+                dist[touched[i]] = Long.MAX_VALUE;
+            }
+            numTouched = 0;
+            heap.clear();
+            dist[u] = 0;
+            touched[numTouched++] = u;
+            heap.update(u, 0);
+            int settled = 0;
+            while(!heap.isEmpty() && settled < settleLimit){
+                int x = heap.poll();
+                settled++;
+                long d = dist[x];
+                if(d > limit) break;
+                if(target[x] == u && --targets == 0) break;
+                for(int i = 0; i < outDeg[x]; i++){
+                    int y = outTo[x][i];
+                    if(y == v) continue;
+                    long nd = d + outW[x][i];
+                    if(nd < dist[y]){
+                        if(dist[y] == Long.MAX_VALUE){
+                            touched[numTouched++] = y;
+                        }
+                        dist[y] = nd;
+                        heap.update(y, nd);
+                    }
+                }
+            }
+        }
+
+        void addShortcut(int u, int w, long weight){
+            if(numShortcuts == scFrom.length){
+                scFrom = Arrays.copyOf(scFrom, 2*numShortcuts);
+                scTo = Arrays.copyOf(scTo, 2*numShortcuts);
+                scW = Arrays.copyOf(scW, 2*numShortcuts);
+            }
+            scFrom[numShortcuts] = u;
+            scTo[numShortcuts] = w;
+            scW[numShortcuts] = weight;
+            numShortcuts++;
+        }
+
+        /*
+         * Adds u -> w, or lowers the weight of an existing u -> w edge.
+         */
+        void addEdge(int u, int w, long weight){
+            for(int i = 0; i < outDeg[u]; i++){
+                if(outTo[u][i] == w){
+                    if(weight < outW[u][i]){
+                        outW[u][i] = weight;
+                        for(int j = 0; j < inDeg[w]; j++){
+                            if(inFrom[w][j] == u) inW[w][j] = weight;
+                        }
+                    }
+                    return;
+                }
+            }
+            if(outDeg[u] == outTo[u].length){
+                outTo[u] = Arrays.copyOf(outTo[u], 2*outDeg[u]);
+                outW[u] = Arrays.copyOf(outW[u], 2*outDeg[u]);
+            }
+            outTo[u][outDeg[u]] = w;
+            outW[u][outDeg[u]++] = weight;
+            if(inDeg[w] == inFrom[w].length){
+                inFrom[w] = Arrays.copyOf(inFrom[w], 2*inDeg[w]);
+                inW[w] = Arrays.copyOf(inW[w], 2*inDeg[w]);
+            }
+            inFrom[w][inDeg[w]] = u;
+            inW[w][inDeg[w]++] = weight;
+        }
+
+        /*
+         * Builds the upward and downward CSR arrays used by queries. The
+         * lists left at a node hold exactly its edges to nodes contracted
+         * after it, which are the upward edges leaving it and the
+         * downward edges entering it.
+         */
+        void extract(){
+            upOffset = new int[n+1];
+            downOffset = new int[n+1];
+            for(int v = 0; v < n; v++){
+                upOffset[v+1] = upOffset[v] + outDeg[v];
+                downOffset[v+1] = downOffset[v] + inDeg[v];
+            }
+            upTo = new int[upOffset[n]];
+            upWeight = new long[upOffset[n]];
+            downFrom = new int[downOffset[n]];
+            downWeight = new long[downOffset[n]];
+            for(int v = 0; v < n; v++){
+                System.arraycopy(outTo[v], 0, upTo, upOffset[v], outDeg[v]);
+                System.arraycopy(outW[v], 0, upWeight, upOffset[v], outDeg[v]);
+                System.arraycopy(inFrom[v], 0, downFrom, downOffset[v], inDeg[v]);
+                System.arraycopy(inW[v], 0, downWeight, downOffset[v], inDeg[v]);
+            }
+        }
+    }
+}
@@ -1,8 +1,6 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.PriorityQueue;
-import java.util.ListIterator;
 
 /*
  * The purpose of this class is to find the shortest path
@@ -12,13 +10,17 @@ import java.util.ListIterator;
  * one also have to consider that edges can be "occupied" at certain
  * time (weight) intervals. 
  *
+ * The queue is an IndexedHeap, so an improved arrival time updates the
+ * key of the queued node in O(log n) instead of removing it by a linear
+ * scan, and all times are compared as longs.
+ *
  * @author Jakob Vyth (vyth@kth.se)
  * @author Carl Nyströmer (carlnys@kth.se)
  */
 public class DijkTimed {
-    PriorityQueue<Node> tentative;
+    IndexedHeap tentative;
     int[] parents;
-    Node[] nodes;
+    long[] dist;
     int s;
 
     /*
@@ -30,67 +32,67 @@ public class DijkTimed {
      * @param s The index of the starting node.   
      */    
     public DijkTimed(ArrayList<LinkedList<Edge>> nb, int s) {
+        this(new Graph(nb), s);
+    }
+
+    /*
+     * Same as above, but runs on a CSR graph.
+     *
+     * @param g The graph, using the weight, t0 and tInc arrays.
+     * @param s The index of the starting node.
+     */
+    public DijkTimed(Graph g, int s) {
         this.s = s;
-        tentative = new PriorityQueue<>();
-        parents = new int[nb.size()];
-        nodes = new Node[nb.size()];
-        for (int i = 0; i < nb.size(); i++) {
-            nodes[i] = new Node(i);
-        }
-        nodes[s].accWeight = 0;
-        Node current = nodes[s];
-        Node neigh;
-        Node parent;
-        Edge edge;
-        LinkedList <Edge> nbs;
-        ListIterator <Edge> it;
-        tentative.add(nodes[s]);
+        int n = g.size();
+        tentative = new IndexedHeap(n);
+        parents = new int[n];
+        dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        boolean[] visited = new boolean[n];
+        dist[s] = 0;
+        parents[s] = s;
+        tentative.update(s, 0);
 
-        long waitTime = Long.MAX_VALUE;
+        int current;
+        int neigh;
+        long waitTime;
         long currTime;
         long arrivalTime; 
-        int traversalTime;
-        int firstTimeSlot;
+        long firstTimeSlot;
+        long tInc;
 
         while (!tentative.isEmpty()) {
-            parent = current;
             current = tentative.poll();
-            parents[current.index] = parent.index;
-            current.visited = true;
-            currTime = current.accWeight;
-            it = nb.get(current.index).listIterator();
+            visited[current] = true;
+            currTime = dist[current];
 
-            while (it.hasNext()) {
-                edge = it.next();
-                traversalTime = edge.weight;
-                firstTimeSlot = edge.t0;
-                neigh = nodes[edge.to];
-                arrivalTime = neigh.accWeight;
+            for (int e = g.offset[current]; e < g.offset[current+1]; e++) {
+                neigh = g.to[e];
+                if (visited[neigh]) {
+                    continue;
+                }
+                firstTimeSlot = g.t0[e];
+                tInc = g.tInc[e];
                 /*       -------------------Cases----------------------
                  * 1) currTime <= firstTimeSlot -> We wait for firstTimeSlot
                  * 2) currTime > firstTimeSlot -> We wait for next available slot
                  * 3) currTime > firstTimeSlot && no increment -> Can't reach! 
                  */
-                if (!neigh.visited) { 
-                    if(currTime <= firstTimeSlot){ 
-                        waitTime = firstTimeSlot - currTime;
-                    } else if ((edge.tInc != 0) && (currTime > firstTimeSlot)) { 
-                        if(((currTime - firstTimeSlot) % edge.tInc) == 0){
-                            waitTime = 0;
-                        } else {
-                            waitTime = edge.tInc - ((currTime - firstTimeSlot) % edge.tInc); 
-                        }
-                    } else { 
-                        continue;
-                    }
-                    if (arrivalTime > currTime + traversalTime + waitTime) {
-                        if (tentative.contains(neigh)) {
-                            tentative.remove(neigh);
-                        }
-                        arrivalTime = currTime + traversalTime + waitTime;
-                        neigh.accWeight = arrivalTime;
-                        tentative.add(neigh);
+                if (currTime <= firstTimeSlot) { 
+                    waitTime = firstTimeSlot - currTime;
+                } else if (tInc != 0) { 
+                    waitTime = (currTime - firstTimeSlot) % tInc;
+                    if (waitTime != 0) {
+                        waitTime = tInc - waitTime;
                     }
+                } else { 
+                    continue;
+                }
+                arrivalTime = currTime + waitTime + g.weight[e];
+                if (arrivalTime < dist[neigh]) {
+                    dist[neigh] = arrivalTime;
+                    parents[neigh] = current;
+                    tentative.update(neigh, arrivalTime);
                 }
             }
         }
@@ -114,7 +116,7 @@ public class DijkTimed {
      */
     public LinkedList<Integer> shortestPath(int t){
         LinkedList<Integer> path = new LinkedList<>();
-        if(nodes[t].accWeight == Long.MAX_VALUE){
+        if(dist[t] == Long.MAX_VALUE){
             return null;
         }
         while(t != s){
@@ -127,25 +129,10 @@ public class DijkTimed {
 
     /*
      * @param index The target node.
-     * @return The total weight of the path between s and t.
+     * @return The total weight of the path between s and t,
+     *         Long.MAX_VALUE if t can't be reached.
      */
     public long getAccWeight(int index) {
-        return nodes[index].accWeight;
-    }
-
-    private class Node implements Comparable <Node> {
-        public int index;
-        public long accWeight;
-        public boolean visited;
-
-        public Node(int index) {
-            this.index = index;
-            this.accWeight = Long.MAX_VALUE;
-            visited = false;
-        }
-
-        public int compareTo(Node node) {
-            return (int) accWeight - (int) node.accWeight;
-        }
+        return dist[index];
     }
 }
@@ -1,22 +1,22 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.PriorityQueue;
-import java.util.ListIterator;
 
 /*
  * The purpose of this class is to find the shortest path
  * from a fixed starting node to any other node in the graph.
  *
- * This is done by using Dijkstras algorithm.
+ * This is done by using Dijkstras algorithm on an IndexedHeap, which
+ * updates the key of a queued node instead of adding a new entry. No
+ * objects are allocated per relaxation and distances are kept as longs.
  *
  * @author Jakob Vyth (vyth@kth.se)
  * @author Carl Nyströmer (carlnys@kth.se)
  */
 public class Dijkstra{
-    PriorityQueue<Node> tentative;
+    IndexedHeap tentative;
     int[] parents;
-    Node[] nodes;
+    long[] dist;
     int s;
 
     /*
@@ -28,38 +28,39 @@ public class Dijkstra{
      * @param s The index of the starting node.
      */
      public Dijkstra(ArrayList<LinkedList<Edge>> nb, int s){
+         this(new Graph(nb), s);
+     }
+
+    /*
+     * Same as above, but runs on a CSR graph.
+     *
+     * @param g The graph, edge weight have to be non-negative.
+     * @param s The index of the starting node.
+     */
+     public Dijkstra(Graph g, int s){
          this.s = s;
-         tentative = new PriorityQueue<>();
-         parents = new int[nb.size()];
-         nodes = new Node[nb.size()];
-         for(int i = 0; i < nb.size(); i++){
-             nodes[i] = new Node(i);
-         }
-         nodes[s].accWeight = 0;
-         Node current = nodes[s];
-         Node neigh;
-         Node parent;
-         Edge edge;
-         LinkedList<Edge> nbs;
-         ListIterator<Edge> it;
-         tentative.add(nodes[s]);
-         boolean[] visited = new boolean[nb.size()];
+         int n = g.size();
+         tentative = new IndexedHeap(n);
+         parents = new int[n];
+         dist = new long[n];
+         Arrays.fill(dist, Long.MAX_VALUE);
+         dist[s] = 0;
+         parents[s] = s;
+         tentative.update(s, 0);
+         int current;
+         int neigh;
+         long newDist;
          while(!tentative.isEmpty()){
-             parent = current;
              current = tentative.poll();
-             parents[current.index] = parent.index;
-             if(visited[current.index])
-                 continue;
-             visited[current.index] = true;
-             it = nb.get(current.index).listIterator();
-             while(it.hasNext()){
-                 edge = it.next();
-                 neigh =  nodes[edge.to];
-                 if(!visited[neigh.index]){
-                     if(neigh.accWeight > current.accWeight + edge.weight){
-                         neigh.accWeight = current.accWeight + edge.weight;
-                         tentative.add(new Node(neigh));
-                     }
+             //A polled node is settled, with non-negative weights it is
+             //never improved and therefore never queued again.
+             for(int e = g.offset[current]; e < g.offset[current+1]; e++){
+                 neigh = g.to[e];
+                 newDist = dist[current] + g.weight[e];
+                 if(newDist < dist[neigh]){
+                     dist[neigh] = newDist;
+                     parents[neigh] = current;
+                     tentative.update(neigh, newDist);
                  }
              }
          }
@@ -83,7 +84,7 @@ public class Dijkstra{
      */
     public LinkedList<Integer> shortestPath(int t){
         LinkedList<Integer> path = new LinkedList<>();
-        if(nodes[t].accWeight == Long.MAX_VALUE){
+        if(dist[t] == Long.MAX_VALUE){
             return null;
         }
         while(t != s){
@@ -96,34 +97,10 @@ public class Dijkstra{
 
     /*
      * @param index The target node.
-     * @return The total weight of the path between s and t.
+     * @return The total weight of the path between s and t,
+     *         Long.MAX_VALUE if t can't be reached.
      */
-    public int getAccWeight(int index){
-        return nodes[index].accWeight;
-    }
-
-    private class Node implements Comparable<Node>{
-        public int index;
-        public int accWeight;
-
-        public Node(int index){
-            this.index = index;
-            this.accWeight = Integer.MAX_VALUE;
-        }
-
-         public Node(Node node){
-            this.index = node.index;
-            this.accWeight = node.accWeight;
-        }
-
-        public int compareTo(Node node){
-            if(this.accWeight < node.accWeight) {
-                return -1;
-            } else if (this.accWeight > node.accWeight) {
-                return 1;
-            } else  {
-                return 0;
-            }
-        }
+    public long getAccWeight(int index){
+        return dist[index];
     }
 }
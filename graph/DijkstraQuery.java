@@ -0,0 +1,199 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/*
+ * The purpose of this class is to answer many shortest path queries
+ * against the same graph. Unlike Dijkstra, which allocates its arrays
+ * for one source, an instance keeps its distance, parent and heap
+ * arrays between queries and only resets the nodes the previous query
+ * touched.
+ *
+ * A query can start from several sources at once and stops as soon as
+ * its target is settled. An instance is not thread-safe, use one per
+ * thread; queryAll spreads a batch of queries over a thread pool that
+ * way.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class DijkstraQuery{
+    Graph g;
+    IndexedHeap tentative;
+    long[] dist;
+    int[] parents;
+    //Nodes whose dist or parent was set by the last query.
+    int[] touched;
+    int numTouched;
+
+    /*
+     * @param g The graph to query, edge weight have to be non-negative.
+     */
+    public DijkstraQuery(Graph g){
+        this.g = g;
+        int n = g.size();
+        tentative = new IndexedHeap(n);
+        dist = new long[n];
+        parents = new int[n];
+        touched = new int[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        Arrays.fill(parents, -1);
+    }
+
+    /*
+     * @param s The index of the starting node.
+     * @param t The index of the target node.
+     * @return The length of the shortest path from s to t,
+     *         Long.MAX_VALUE if there is none.
+     */
+    public long query(int s, int t){
+        reset();
+        seed(s, 0);
+        return search(t);
+    }
+
+    /*
+     * Runs a search from several sources at once, as if there was a zero
+     * weight edge from a virtual node to each of them.
+     *
+     * @param sources The starting nodes.
+     * @param initDist The distance each source starts at, or null for 0.
+     * @param t The target node, or -1 to settle every reachable node.
+     * @return The distance to t, or Long.MAX_VALUE if t is -1 or can't be reached.
+     */
+    public long query(int[] sources, long[] initDist, int t){
+        reset();
+        for(int i = 0; i < sources.length; i++){
+            seed(sources[i], initDist == null ? 0 : initDist[i]);
+        }
+        return search(t);
+    }
+
+    /*
+     * @param v A node.
+     * @return The distance to v found by the last query. Exact for every
+     *         node that was settled, i.e. not further away than the target.
+     */
+    public long getDist(int v){
+        return dist[v];
+    }
+
+    /*
+     * @param v A node.
+     * @return The node before v on the last query's path to v, -1 for a source.
+     */
+    public int getParent(int v){
+        return parents[v];
+    }
+
+    /*
+     * @param t The target node.
+     * @return The path from a source to t found by the last query.
+     *         If no such path exists, return null.
+     */
+    public LinkedList<Integer> shortestPath(int t){
+        if(dist[t] == Long.MAX_VALUE){
+            return null;
+        }
+        LinkedList<Integer> path = new LinkedList<>();
+        while(t != -1){
+            path.push(t);
+            t = parents[t];
+        }
+        return path;
+    }
+
+    /*
+     * Answers a batch of point to point queries in parallel. Query i is
+     * answered by engines[i % engines.length], so every engine is used by
+     * one task at a time and can be reused for the next batch.
+     *
+     * @param engines One engine per concurrent task, all on the same graph.
+     * @param sources The starting node of each query.
+     * @param targets The target node of each query.
+     * @param pool The thread pool to run the tasks on.
+     * @return The distance of each query, Long.MAX_VALUE if unreachable.
+     * @throws IllegalArgumentException If there are no engines, or not as
+     *         many targets as sources.
+     */
+    public static long[] queryAll(DijkstraQuery[] engines, int[] sources, int[] targets,
+                                  ExecutorService pool) throws InterruptedException{
+        if(engines.length == 0){
+            throw new IllegalArgumentException("Needs at least one engine");
+        }
+        if(sources.length != targets.length){
+            throw new IllegalArgumentException("Not as many targets as sources");
+        }
+        final long[] result = new long[sources.length];
+        final int stride = engines.length;
+        List<Callable<Void>> tasks = new ArrayList<>(stride);
+        for(int k = 0; k < stride; k++){
+            final DijkstraQuery engine = engines[k];
+            final int first = k;
+            tasks.add(() -> {
+                for(int i = first; i < sources.length; i += stride){
+                    result[i] = engine.query(sources[i], targets[i]);
+                }
+                return null;
+            });
+        }
+        for(Future<Void> f : pool.invokeAll(tasks)){
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return result;
+    }
+
+    private void reset(){
+        for(int i = 0; i < numTouched; i++){
+            int v = touched[i];
+            dist[v] = Long.MAX_VALUE;
+            parents[v] = -1;
+        }
+        numTouched = 0;
+        tentative.clear();
+    }
+
+    private void seed(int v, long d){
+        if(d < dist[v]){
+            if(dist[v] == Long.MAX_VALUE){
+                touched[numTouched++] = v;
+            }
+            dist[v] = d;
+            tentative.update(v, d);
+        }
+    }
+
+    private long search(int t){
+        int current;
+        int neigh;
+        long newDist;
+        while(!tentative.isEmpty()){
+            current = tentative.poll();
+            if(current == t){
+                return dist[t];
+            }
+            for(int e = g.offset[current]; e < g.offset[current+1]; e++){
+                neigh = g.to[e];
+                newDist = dist[current] + g.weight[e];
+                if(newDist < dist[neigh]){
+                    if(dist[neigh] == Long.MAX_VALUE){
+                        touched[numTouched++] = neigh;
+                    }
+                    dist[neigh] = newDist;
+                    parents[neigh] = current;
+                    tentative.update(neigh, newDist);
+                }
+            }
+        }
+        return t < 0 ? Long.MAX_VALUE : dist[t];
+    }
+}
@@ -0,0 +1,251 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+ * The purpose of this class is to find the maximum amount of flow
+ * that can be pushed through a directed graph.
+ *
+ * This is done by using Dinic's algorithm on a FlowNetwork: a BFS
+ * layers the residual graph by distance from the source, and a
+ * depth-first search with a current-arc pointer per node then pushes a
+ * blocking flow along the layers. Both searches use preallocated int
+ * arrays, so nothing is allocated per augmenting path.
+ *
+ * The flow can be updated after capacity changes instead of being
+ * computed again: setCapacity() only reroutes or cancels the flow over
+ * an edge that lost capacity, and reflow() then augments from the
+ * current flow.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class Dinic{
+    FlowNetwork net;
+    long flow;
+    int s;
+    int t;
+    int[] level;
+    //Current arc of each node in the blocking flow search.
+    int[] it;
+    int[] queue;
+    //Edges of the path the search is currently extending.
+    int[] path;
+
+    /*
+     * @param graph A datastructure which keeps the list of neighbors for each
+     *             node in the graph, edge capacity has to be non-negative.
+     * @param s The index of the tap. (Start)
+     * @param t The index of the sink. (Target)
+     */
+    public Dinic(ArrayList<LinkedList<Edge>> graph, int s, int t){
+        this(new FlowNetwork(graph), s, t);
+    }
+
+    /*
+     * Same as above, but runs on a CSR graph, using its cap array.
+     */
+    public Dinic(Graph g, int s, int t){
+        this(new FlowNetwork(g), s, t);
+    }
+
+    /*
+     * Computes the maximum flow in the given network. The network keeps
+     * the resulting flow. If it already holds a flow, for instance from
+     * another max-flow engine, that flow is augmented instead of
+     * starting from zero.
+     */
+    public Dinic(FlowNetwork net, int s, int t){
+        this.net = net;
+        this.s = s;
+        this.t = t;
+        int n = net.size();
+        level = new int[n];
+        it = new int[n];
+        queue = new int[n];
+        path = new int[n];
+        if(s != t){
+            flow = net.outflow(s) + augment(s, t, Long.MAX_VALUE);
+        }
+    }
+
+    /*
+     * @return The maximum flow to the sink.
+     */
+    public long getMaxFlow(){
+        return flow;
+    }
+
+    /*
+     * @return The edges which have flow through them when the algorithm is done.
+     */
+    public LinkedList<Edge> getFlowingEdges(){
+        return net.getFlowingEdges();
+    }
+
+    /*
+     * @return The residual network holding the flow.
+     */
+    public FlowNetwork getNetwork(){
+        return net;
+    }
+
+    /*
+     * @return For each node, true if it is on the source side of a
+     *         minimum cut.
+     */
+    public boolean[] getMinCut(){
+        return net.getMinCut(s);
+    }
+
+    /*
+     * @return The edges crossing the minimum cut, their capacities sum
+     *         to the maximum flow.
+     */
+    public LinkedList<Edge> getCutEdges(){
+        return net.getCutEdges(s);
+    }
+
+    /*
+     * Changes the capacity of an input edge, keeping the flow valid. If
+     * the edge carries more flow than its new capacity, the surplus is
+     * rerouted from its start to its end node where possible, and the
+     * rest is cancelled back to the source and the sink. The flow may no
+     * longer be maximal afterwards, call reflow() when all changes are
+     * made.
+     *
+     * @param i An input edge, numbered in adjacency list order.
+     * @param c The new capacity, non-negative.
+     */
+    public void setCapacity(int i, int c){
+        int p = net.pos[i];
+        int q = net.rev[p];
+        int f = net.cap[p] - net.res[p];
+        net.cap[p] = c;
+        if(f <= c){
+            net.res[p] = c - f;
+            return;
+        }
+        int u = net.to[q];
+        int v = net.to[p];
+        net.res[p] = 0;
+        net.res[q] = c;
+        long r = f - c;
+        if(u != v){
+            r -= augment(u, v, r);
+        }
+        if(r > 0 && u != v){
+            //u now has r units too much coming in and v r units too little.
+            if(u != s && u != t){
+                augment(u, t, r - augment(u, s, r));
+            }
+            if(v != s && v != t){
+                augment(s, v, r - augment(t, v, r));
+            }
+        }
+        if(s != t){
+            flow = net.outflow(s);
+        }
+    }
+
+    /*
+     * Augments the current flow to a maximum flow, after capacity changes.
+     *
+     * @return The new maximum flow.
+     */
+    public long reflow(){
+        flow += augment(s, t, Long.MAX_VALUE);
+        return flow;
+    }
+
+    /*
+     * Pushes up to limit units of flow from a to b in the residual graph.
+     *
+     * @return The amount pushed.
+     */
+    long augment(int a, int b, long limit){
+        long total = 0;
+        if(a == b){
+            return 0;
+        }
+        while(total < limit && bfs(a, b)){
+            System.arraycopy(net.start, 0, it, 0, net.n);
+            total += blockingFlow(a, b, limit - total);
+        }
+        return total;
+    }
+
+    private boolean bfs(int a, int b){
+        Arrays.fill(level, -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = a;
+        level[a] = 0;
+        while(head < tail){
+            int u = queue[head++];
+            for(int e = net.start[u]; e < net.start[u+1]; e++){
+                int v = net.to[e];
+                if(net.res[e] > 0 && level[v] < 0){
+                    level[v] = level[u] + 1;
+                    if(v == b){
+                        return true;
+                    }
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Iterative DFS along the BFS layers. When b is reached the path's
+     * bottleneck is pushed and the search backs up to the first
+     * saturated edge, a node without usable edges is cut off by
+     * clearing its level.
+     */
+    private long blockingFlow(int a, int b, long limit){
+        long total = 0;
+        int depth = 0;
+        int u = a;
+        while(total < limit){
+            if(u == b){
+                long push = limit - total;
+                for(int i = 0; i < depth; i++){
+                    push = Math.min(push, net.res[path[i]]);
+                }
+                int back = depth;
+                for(int i = depth - 1; i >= 0; i--){
+                    int e = path[i];
+                    net.res[e] -= push;
+                    net.res[net.rev[e]] += push;
+                    if(net.res[e] == 0){
+                        back = i;
+                    }
+                }
+                total += push;
+                depth = back;
+                u = depth == 0 ? a : net.to[path[depth-1]];
+                continue;
+            }
+            int end = net.start[u+1];
+            int e = it[u];
+            while(e < end && (net.res[e] == 0 || level[net.to[e]] != level[u] + 1)){
+                e++;
+            }
+            it[u] = e;
+            if(e < end){
+                path[depth++] = e;
+                u = net.to[e];
+            } else {
+                level[u] = -1;
+                if(depth == 0){
+                    break;
+                }
+                depth--;
+                u = net.to[net.rev[path[depth]]];
+                it[u]++;
+            }
+        }
+        return total;
+    }
+}
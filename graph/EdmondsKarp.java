@@ -11,9 +11,11 @@ import java.util.*;
  */
 public class EdmondsKarp{
     ArrayList<LinkedList<Edge>> graph;
+    Graph g;
     int[][] flowing;
     int flow;
     int n;
+    int s;
 
     /*
      * The constructor will apply Edmonds-Karp algorithm
@@ -27,9 +29,22 @@ public class EdmondsKarp{
      * @param t The index of the sink. (Target) Hmmm....
      */    
     public EdmondsKarp(ArrayList<LinkedList<Edge>> graph, int s, int t){
+        this(new Graph(graph), s, t);
         this.graph = graph;
+    }
+
+    /*
+     * Same as above, but runs on a CSR graph, using its cap array.
+     *
+     * @param g The graph, including back-edges with capacity 0.
+     * @param s The index of the tap.
+     * @param t The index of the sink.
+     */
+    public EdmondsKarp(Graph g, int s, int t){
+        this.g = g;
+        this.s = s;
         flow = 0;
-        n = graph.size();
+        n = g.size();
         flowing = new int[n][n];
         int[] parent = new int[n];
         int pathFlow;
@@ -63,19 +78,69 @@ public class EdmondsKarp{
 
     /*
      * @return The edges which have flow through them when the algorithm is done. 
+     *         If the flow was computed on a CSR graph, new Edge objects are
+     *         created for them.
      */
     public LinkedList<Edge> getFlowingEdges(){
         LinkedList<Edge> edges = new LinkedList<>();
         for(int i = 0; i < n; ++i){
-            for(Edge e : graph.get(i)){
-                if(e.cap != 0 && flowing[i][e.to] > 0){
-                    edges.add(e);
+            Iterator<Edge> it = graph == null ? null : graph.get(i).iterator();
+            for(int e = g.offset[i]; e < g.offset[i+1]; ++e){
+                Edge edge = it == null ? new Edge(g.to[e], g.cap[e]) : it.next();
+                if(g.cap[e] != 0 && flowing[i][g.to[e]] > 0){
+                    edges.add(edge);
                 } 
             }
         }
         return edges;
     }
 
+    /*
+     * @return For each node, true if it can be reached from the tap in the
+     *         residual graph, which makes it part of the source side of a
+     *         minimum cut.
+     */
+    public boolean[] getMinCut(){
+        boolean[] visited = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = s;
+        visited[s] = true;
+        while(head < tail){
+            int current = queue[head++];
+            for(int e = g.offset[current]; e < g.offset[current+1]; ++e){
+                int to = g.to[e];
+                if(!visited[to] && g.cap[e] - flowing[current][to] > 0){
+                    visited[to] = true;
+                    queue[tail++] = to;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /*
+     * @return The edges going from the source side to the sink side of the
+     *         minimum cut, their capacities sum to the maximum flow. If the
+     *         flow was computed on a CSR graph, new Edge objects are created
+     *         for them.
+     */
+    public LinkedList<Edge> getCutEdges(){
+        boolean[] side = getMinCut();
+        LinkedList<Edge> edges = new LinkedList<>();
+        for(int i = 0; i < n; ++i){
+            Iterator<Edge> it = graph == null ? null : graph.get(i).iterator();
+            for(int e = g.offset[i]; e < g.offset[i+1]; ++e){
+                Edge edge = it == null ? new Edge(g.to[e], g.cap[e]) : it.next();
+                if(g.cap[e] != 0 && side[i] && !side[g.to[e]]){
+                    edges.add(edge);
+                }
+            }
+        }
+        return edges;
+    }
+
     private int bfs(int s, int t, int[] parent){
         boolean[] visited = new boolean[n];
         int[] minCapInPath = new int[n];
@@ -87,14 +152,15 @@ public class EdmondsKarp{
         int resFlow;
         while(!queue.isEmpty()){
             current = queue.poll(); 
-            for(Edge e : graph.get(current)){
-                resFlow = e.cap - flowing[current][e.to];
-                if(!visited[e.to] && (resFlow > 0)){
-                    parent[e.to] = current; 
-                    minCapInPath[e.to] = Math.min(minCapInPath[current], resFlow); 
-                    if(e.to != t){
-                        queue.add(e.to); 
-                        visited[e.to] = true;
+            for(int e = g.offset[current]; e < g.offset[current+1]; ++e){
+                int to = g.to[e];
+                resFlow = g.cap[e] - flowing[current][to];
+                if(!visited[to] && (resFlow > 0)){
+                    parent[to] = current; 
+                    minCapInPath[to] = Math.min(minCapInPath[current], resFlow); 
+                    if(to != t){
+                        queue.add(to); 
+                        visited[to] = true;
                     } else {
                         return minCapInPath[t];
                     }
@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+/*
+ * The purpose of this class is to hold the residual graph of a flow
+ * network in edge-indexed primitive arrays, for the max-flow engines.
+ *
+ * Every input edge u -> v becomes a pair of residual edges, u -> v with
+ * the edge's capacity and v -> u with capacity 0, and rev[] links the
+ * two. The residual edges of a node are stored contiguously, starting
+ * at start[u], so the whole network takes O(E) memory instead of the
+ * n*n matrix of EdmondsKarp.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class FlowNetwork{
+    int n;
+    //Residual edges of node u are start[u] .. start[u+1]-1.
+    int[] start;
+    int[] to;
+    //Index of the paired edge going the other way.
+    int[] rev;
+    //Remaining capacity.
+    int[] res;
+    //Capacity of the input edge, 0 for the paired back-edges.
+    int[] cap;
+    //Cost per unit of flow, the edge's weight, negated on the back-edge.
+    int[] cost;
+    //Position of the i'th input edge, in adjacency list order.
+    int[] pos;
+    //The input edges, null if built from a CSR graph.
+    Edge[] edges;
+
+    /*
+     * @param graph A datastructure which keeps the list of neighbors for
+     *             each node, edge capacity has to be non-negative.
+     *             Back-edges don't have to be included.
+     */
+    public FlowNetwork(ArrayList<LinkedList<Edge>> graph){
+        this(new Graph(graph));
+        int i = 0;
+        for(LinkedList<Edge> list : graph){
+            for(Edge e : list){
+                edges[i++] = e;
+            }
+        }
+    }
+
+    /*
+     * @param g The graph, using its cap array, and its weight array as
+     *          the cost per unit of flow.
+     */
+    public FlowNetwork(Graph g){
+        n = g.size();
+        int m = g.edgeCount();
+        edges = new Edge[m];
+        start = new int[n+1];
+        for(int u = 0; u < n; u++){
+            for(int e = g.offset[u]; e < g.offset[u+1]; e++){
+                start[u+1]++;
+                start[g.to[e]+1]++;
+            }
+        }
+        for(int u = 0; u < n; u++){
+            start[u+1] += start[u];
+        }
+        int[] fill = new int[n];
+        System.arraycopy(start, 0, fill, 0, n);
+        to = new int[2*m];
+        rev = new int[2*m];
+        res = new int[2*m];
+        cap = new int[2*m];
+        cost = new int[2*m];
+        pos = new int[m];
+        for(int u = 0; u < n; u++){
+            for(int e = g.offset[u]; e < g.offset[u+1]; e++){
+                int v = g.to[e];
+                int p = fill[u]++;
+                int q = fill[v]++;
+                to[p] = v;
+                to[q] = u;
+                rev[p] = q;
+                rev[q] = p;
+                res[p] = g.cap[e];
+                cap[p] = g.cap[e];
+                cost[p] = g.weight[e];
+                cost[q] = -g.weight[e];
+                pos[e] = p;
+            }
+        }
+    }
+
+    /*
+     * @return The number of nodes.
+     */
+    public int size(){
+        return n;
+    }
+
+    /*
+     * @return The number of input edges.
+     */
+    public int edgeCount(){
+        return pos.length;
+    }
+
+    /*
+     * Removes all flow, giving every edge its full capacity back.
+     */
+    public void reset(){
+        System.arraycopy(cap, 0, res, 0, res.length);
+    }
+
+    /*
+     * @param i An input edge, numbered in adjacency list order.
+     * @return The flow through the edge.
+     */
+    public int getFlow(int i){
+        return cap[pos[i]] - res[pos[i]];
+    }
+
+    /*
+     * @param u A node.
+     * @return The flow leaving u minus the flow entering it.
+     */
+    public long outflow(int u){
+        long sum = 0;
+        for(int e = start[u]; e < start[u+1]; e++){
+            sum += cap[e] - res[e];
+        }
+        return sum;
+    }
+
+    /*
+     * @param s The source the flow was pushed from.
+     * @return For each node, true if it can be reached from s in the
+     *         residual graph. When the network holds a maximum flow these
+     *         nodes are the source side of a minimum s-t cut.
+     */
+    public boolean[] getMinCut(int s){
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = s;
+        seen[s] = true;
+        while(head < tail){
+            int u = queue[head++];
+            for(int e = start[u]; e < start[u+1]; e++){
+                if(res[e] > 0 && !seen[to[e]]){
+                    seen[to[e]] = true;
+                    queue[tail++] = to[e];
+                }
+            }
+        }
+        return seen;
+    }
+
+    /*
+     * @param s The source the flow was pushed from.
+     * @return The input edges going from the source side to the sink side
+     *         of the minimum cut. With a maximum flow they are saturated
+     *         and their capacities sum to the flow.
+     */
+    public LinkedList<Edge> getCutEdges(int s){
+        boolean[] side = getMinCut(s);
+        LinkedList<Edge> list = new LinkedList<>();
+        for(int i = 0; i < pos.length; i++){
+            int p = pos[i];
+            if(cap[p] != 0 && side[to[rev[p]]] && !side[to[p]]){
+                list.add(edge(i));
+            }
+        }
+        return list;
+    }
+
+    /*
+     * @return The input edges which have flow through them. If the
+     *         network was built from a CSR graph, new Edge objects are
+     *         created for them.
+     */
+    public LinkedList<Edge> getFlowingEdges(){
+        LinkedList<Edge> list = new LinkedList<>();
+        for(int i = 0; i < pos.length; i++){
+            int p = pos[i];
+            if(cap[p] != 0 && cap[p] - res[p] > 0){
+                list.add(edge(i));
+            }
+        }
+        return list;
+    }
+
+    private Edge edge(int i){
+        int p = pos[i];
+        return edges[i] != null ? edges[i] : new Edge(to[p], cap[p]);
+    }
+}
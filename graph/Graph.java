@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+ * The purpose of this class is to store a directed graph in compressed
+ * sparse row (CSR) form. The edges leaving node v are the indices
+ * offset[v] .. offset[v+1]-1 of the parallel edge arrays, so a graph
+ * costs a few ints per edge and no objects.
+ *
+ * The edge arrays hold the same fields as Edge, the end node, weight,
+ * capacity and the t0/tInc departure times of the timed Dijkstra.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class Graph{
+    //Number of nodes.
+    public final int n;
+    //Edges of node v are offset[v] (inclusive) to offset[v+1] (exclusive).
+    public final int[] offset;
+    public final int[] to;
+    public final int[] weight;
+    public final int[] cap;
+    public final int[] t0;
+    public final int[] tInc;
+
+    /*
+     * Converts an adjacency list to a CSR graph. The edges of each node
+     * keep the order they have in its list.
+     *
+     * @param nb A datastructure which keeps the list of neighbors for each
+     *             node in the graph.
+     */
+    public Graph(ArrayList<LinkedList<Edge>> nb){
+        n = nb.size();
+        offset = new int[n+1];
+        for(int i = 0; i < n; ++i){
+            offset[i+1] = offset[i] + nb.get(i).size();
+        }
+        int m = offset[n];
+        to = new int[m];
+        weight = new int[m];
+        cap = new int[m];
+        t0 = new int[m];
+        tInc = new int[m];
+        int e = 0;
+        for(int i = 0; i < n; ++i){
+            for(Edge edge : nb.get(i)){
+                to[e] = edge.to;
+                weight[e] = edge.weight;
+                cap[e] = edge.cap;
+                t0[e] = edge.t0;
+                tInc[e] = edge.tInc;
+                e++;
+            }
+        }
+    }
+
+    Graph(int n, int[] offset, int[] to, int[] weight, int[] cap, int[] t0, int[] tInc){
+        this.n = n;
+        this.offset = offset;
+        this.to = to;
+        this.weight = weight;
+        this.cap = cap;
+        this.t0 = t0;
+        this.tInc = tInc;
+    }
+
+    /*
+     * @return A graph with every edge turned around, keeping its weight,
+     *         capacity and times. Used by searches that run backwards
+     *         from the target.
+     */
+    public Graph reverse(){
+        int m = offset[n];
+        int[] rOffset = new int[n+1];
+        for(int e = 0; e < m; ++e){
+            rOffset[to[e]+1]++;
+        }
+        for(int i = 0; i < n; ++i){
+            rOffset[i+1] += rOffset[i];
+        }
+        int[] pos = Arrays.copyOf(rOffset, n);
+        int[] rTo = new int[m];
+        int[] rWeight = new int[m];
+        int[] rCap = new int[m];
+        int[] rT0 = new int[m];
+        int[] rTInc = new int[m];
+        for(int v = 0; v < n; ++v){
+            for(int e = offset[v]; e < offset[v+1]; ++e){
+                int p = pos[to[e]]++;
+                rTo[p] = v;
+                rWeight[p] = weight[e];
+                rCap[p] = cap[e];
+                rT0[p] = t0[e];
+                rTInc[p] = tInc[e];
+            }
+        }
+        return new Graph(n, rOffset, rTo, rWeight, rCap, rT0, rTInc);
+    }
+
+    /*
+     * @return The number of nodes in the graph.
+     */
+    public int size(){
+        return n;
+    }
+
+    /*
+     * @return The number of edges in the graph.
+     */
+    public int edgeCount(){
+        return offset[n];
+    }
+}
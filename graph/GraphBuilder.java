@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/*
+ * The purpose of this class is to build a CSR Graph edge by edge without
+ * creating an Edge object per edge. Edges are collected in growable
+ * primitive arrays and grouped by start node with a counting sort when
+ * build() is called.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class GraphBuilder{
+    int n;
+    int m;
+    int[] from;
+    int[] to;
+    int[] weight;
+    int[] cap;
+    int[] t0;
+    int[] tInc;
+
+    /*
+     * @param n The number of nodes in the graph.
+     */
+    public GraphBuilder(int n){
+        this(n, 16);
+    }
+
+    /*
+     * @param n The number of nodes in the graph.
+     * @param expectedEdges Initial edge capacity, avoids regrowing the
+     *             arrays when the edge count is known up front.
+     */
+    public GraphBuilder(int n, int expectedEdges){
+        this.n = n;
+        int c = Math.max(expectedEdges, 1);
+        from = new int[c];
+        to = new int[c];
+        weight = new int[c];
+        cap = new int[c];
+        t0 = new int[c];
+        tInc = new int[c];
+    }
+
+    /*
+     * Adds an edge whose capacity equals its weight, like new Edge(to, weight).
+     */
+    public void addEdge(int from, int to, int weight){
+        addEdge(from, to, weight, weight, 0, 0);
+    }
+
+    /*
+     * Adds a timed edge with capacity 0, like new Edge(to, weight, t0, tInc).
+     */
+    public void addEdge(int from, int to, int weight, int t0, int tInc){
+        addEdge(from, to, weight, 0, t0, tInc);
+    }
+
+    /*
+     * @param from The start node
+     * @param to The end node
+     * @param weight The weight of the edge
+     * @param cap The capacity of the edge in a flow graph
+     * @param t0 The first time where the edge is available
+     * @param tInc The period of the edge after t0
+     */
+    public void addEdge(int from, int to, int weight, int cap, int t0, int tInc){
+        if(m == this.from.length){
+            int c = 2*m;
+            this.from = Arrays.copyOf(this.from, c);
+            this.to = Arrays.copyOf(this.to, c);
+            this.weight = Arrays.copyOf(this.weight, c);
+            this.cap = Arrays.copyOf(this.cap, c);
+            this.t0 = Arrays.copyOf(this.t0, c);
+            this.tInc = Arrays.copyOf(this.tInc, c);
+        }
+        this.from[m] = from;
+        this.to[m] = to;
+        this.weight[m] = weight;
+        this.cap[m] = cap;
+        this.t0[m] = t0;
+        this.tInc[m] = tInc;
+        m++;
+    }
+
+    /*
+     * @return A CSR graph holding every added edge. Edges leaving the
+     *         same node keep the order they were added in.
+     */
+    public Graph build(){
+        int[] offset = new int[n+1];
+        for(int e = 0; e < m; ++e){
+            offset[from[e]+1]++;
+        }
+        for(int i = 0; i < n; ++i){
+            offset[i+1] += offset[i];
+        }
+        int[] pos = Arrays.copyOf(offset, n);
+        int[] gTo = new int[m];
+        int[] gWeight = new int[m];
+        int[] gCap = new int[m];
+        int[] gT0 = new int[m];
+        int[] gTInc = new int[m];
+        for(int e = 0; e < m; ++e){
+            int p = pos[from[e]]++;
+            gTo[p] = to[e];
+            gWeight[p] = weight[e];
+            gCap[p] = cap[e];
+            gT0[p] = t0[e];
+            gTInc[p] = tInc[e];
+        }
+        return new Graph(n, offset, gTo, gWeight, gCap, gT0, gTInc);
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.Arrays;
+
+/*
+ * The purpose of this class is to be a priority queue over the nodes
+ * 0..n-1 of a graph, ordered by a long key per node. Unlike
+ * java.util.PriorityQueue it knows where every node sits in the heap,
+ * so the key of a queued node can be changed in O(log n) without
+ * adding a second entry. Memory is three arrays of length n and nothing
+ * is allocated after construction.
+ *
+ * The heap is 4-ary, which makes it shallower than a binary heap and
+ * keeps the children of a node in the same cache line.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class IndexedHeap{
+    private static final int D = 4;
+    private int[] heap;
+    //Position of each node in heap, -1 if not queued.
+    private int[] pos;
+    private long[] key;
+    private int size;
+
+    /*
+     * @param n The number of nodes, the heap holds nodes 0..n-1.
+     */
+    public IndexedHeap(int n){
+        heap = new int[n];
+        pos = new int[n];
+        key = new long[n];
+        Arrays.fill(pos, -1);
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /*
+     * @return True if v is currently in the queue.
+     */
+    public boolean contains(int v){
+        return pos[v] >= 0;
+    }
+
+    /*
+     * @return The key of v. Only meaningful while v is queued.
+     */
+    public long getKey(int v){
+        return key[v];
+    }
+
+    /*
+     * @return The node with the smallest key, without removing it.
+     */
+    public int peek(){
+        return heap[0];
+    }
+
+    /*
+     * @return The smallest key in the queue.
+     */
+    public long minKey(){
+        return key[heap[0]];
+    }
+
+    /*
+     * Inserts v with key k, or changes the key of v if it is already queued.
+     *
+     * @param v The node.
+     * @param k The new key.
+     */
+    public void update(int v, long k){
+        int i = pos[v];
+        if(i < 0){
+            key[v] = k;
+            heap[size] = v;
+            pos[v] = size;
+            siftUp(size++);
+        } else if(k < key[v]){
+            key[v] = k;
+            siftUp(i);
+        } else if(k > key[v]){
+            key[v] = k;
+            siftDown(i);
+        }
+    }
+
+    /*
+     * Removes and returns the node with the smallest key.
+     */
+    public int poll(){
+        int v = heap[0];
+        pos[v] = -1;
+        if(--size > 0){
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return v;
+    }
+
+    /*
+     * Removes every node from the queue, in time proportional to the
+     * number of queued nodes.
+     */
+    public void clear(){
+        for(int i = 0; i < size; i++){
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i){
+        int v = heap[i];
+        long k = key[v];
+        while(i > 0){
+            int p = (i - 1) / D;
+            int u = heap[p];
+            if(key[u] <= k){
+                break;
+            }
+            heap[i] = u;
+            pos[u] = i;
+            i = p;
+        }
+        heap[i] = v;
+        pos[v] = i;
+    }
+
+    private void siftDown(int i){
+        int v = heap[i];
+        long k = key[v];
+        while(true){
+            int first = i*D + 1;
+            if(first >= size){
+                break;
+            }
+            int best = first;
+            long bestKey = key[heap[first]];
+            int last = Math.min(first + D, size);
+            for(int c = first + 1; c < last; c++){
+                long ck = key[heap[c]];
+                if(ck < bestKey){
+                    best = c;
+                    bestKey = ck;
+                }
+            }
+            if(bestKey >= k){
+                break;
+            }
+            int u = heap[best];
+            heap[i] = u;
+            pos[u] = i;
+            i = best;
+        }
+        heap[i] = v;
+        pos[v] = i;
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * The purpose of this class is to find a minimum spanning tree of an
+ * undirected weighted graph, or a minimum spanning forest if the graph
+ * isn't connected.
+ *
+ * The edges are kept in primitive arrays, from[i], to[i] and weight[i].
+ * By default Kruskal's algorithm is used: the edge indices are sorted by
+ * weight with an LSD radix sort, 8 bits per pass, and then joined with
+ * a union-find in that order. The parallel mode uses Borůvka's
+ * algorithm instead: in every phase the threads find the cheapest edge
+ * leaving each component at once, keeping the minimum per component in
+ * an AtomicLongArray, and the components are then joined along those
+ * edges. There are at most log n phases.
+ *
+ * Ties in weight are broken by edge index, so both modes pick the same
+ * tree.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class MST{
+    int n;
+    int[] from;
+    int[] to;
+    int[] weight;
+    //Union-find over the nodes, by size with path halving.
+    int[] parent;
+    int[] size;
+    int[] treeEdges;
+    int numTreeEdges;
+    long cost;
+
+    /*
+     * @param graph A datastructure which keeps the list of neighbors for each
+     *             node in the graph. Every edge is used as undirected, so an
+     *             edge can be listed in one or both directions.
+     */
+    public MST(ArrayList<LinkedList<Edge>> graph){
+        this(new Graph(graph));
+    }
+
+    /*
+     * Same as above, but runs on a CSR graph. The edge indices returned
+     * by getEdges() are its CSR edge indices.
+     */
+    public MST(Graph g){
+        this(g.size(), edgeStarts(g), g.to, g.weight);
+    }
+
+    /*
+     * @param n The number of nodes.
+     * @param from Start node of each edge.
+     * @param to End node of each edge.
+     * @param weight Weight of each edge.
+     */
+    public MST(int n, int[] from, int[] to, int[] weight){
+        this(n, from, to, weight, 1);
+    }
+
+    /*
+     * Same as above, using Borůvka's algorithm on the given number of
+     * threads if it is more than 1. Worth it for very large graphs only.
+     */
+    public MST(int n, int[] from, int[] to, int[] weight, int threads){
+        this.n = n;
+        this.from = from;
+        this.to = to;
+        this.weight = weight;
+        parent = new int[n];
+        size = new int[n];
+        for(int i = 0; i < n; ++i){
+            parent[i] = i;
+            size[i] = 1;
+        }
+        treeEdges = new int[Math.max(n - 1, 0)];
+        if(threads > 1){
+            boruvka(threads);
+        } else {
+            kruskal();
+        }
+    }
+
+    /*
+     * @return The total weight of the tree.
+     */
+    public long getCost(){
+        return cost;
+    }
+
+    /*
+     * @return The indices of the edges in the tree, n-1 of them if the
+     *         graph is connected.
+     */
+    public int[] getEdges(){
+        return Arrays.copyOf(treeEdges, numTreeEdges);
+    }
+
+    /*
+     * @return The number of trees in the forest, 1 if the graph is connected.
+     */
+    public int getComponents(){
+        return n - numTreeEdges;
+    }
+
+    public int getFrom(int edge){
+        return from[edge];
+    }
+
+    public int getTo(int edge){
+        return to[edge];
+    }
+
+    private static int[] edgeStarts(Graph g){
+        int[] from = new int[g.edgeCount()];
+        for(int v = 0; v < g.size(); ++v){
+            Arrays.fill(from, g.offset[v], g.offset[v+1], v);
+        }
+        return from;
+    }
+
+    private void kruskal(){
+        int[] order = sortByWeight(weight);
+        for(int i = 0; i < order.length && numTreeEdges < n - 1; ++i){
+            add(order[i]);
+        }
+    }
+
+    /*
+     * @return The indices 0..m-1 sorted by weight, equal weights in
+     *         index order. Passes where all edges have the same byte are
+     *         skipped, so small weights take one or two passes.
+     */
+    static int[] sortByWeight(int[] weight){
+        int m = weight.length;
+        int[] idx = new int[m];
+        int[] tmp = new int[m];
+        for(int i = 0; i < m; ++i){
+            idx[i] = i;
+        }
+        int[] count = new int[257];
+        for(int shift = 0; shift < 32; shift += 8){
+            Arrays.fill(count, 0);
+            for(int i = 0; i < m; ++i){
+                count[(((weight[i] ^ Integer.MIN_VALUE) >>> shift) & 255) + 1]++;
+            }
+            boolean trivial = false;
+            for(int b = 1; b <= 256; ++b){
+                trivial |= count[b] == m;
+                count[b] += count[b-1];
+            }
+            if(trivial){
+                continue;
+            }
+            for(int i = 0; i < m; ++i){
+                int e = idx[i];
+                tmp[count[((weight[e] ^ Integer.MIN_VALUE) >>> shift) & 255]++] = e;
+            }
+            int[] t = idx;
+            idx = tmp;
+            tmp = t;
+        }
+        return idx;
+    }
+
+    private void boruvka(int threads){
+        int m = from.length;
+        int[] comp = new int[n];
+        AtomicLongArray best = new AtomicLongArray(n);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        int grain = Math.max(4096, m / (8*threads));
+        try {
+            boolean merged = true;
+            while(merged && numTreeEdges < n - 1){
+                for(int v = 0; v < n; ++v){
+                    comp[v] = find(v);
+                    best.set(v, Long.MAX_VALUE);
+                }
+                pool.invoke(new Cheapest(comp, best, 0, m, grain));
+                merged = false;
+                for(int c = 0; c < n; ++c){
+                    long b = best.get(c);
+                    if(b != Long.MAX_VALUE){
+                        merged |= add((int)b);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+     * Adds the edge to the tree if its ends are in different components.
+     */
+    private boolean add(int e){
+        int a = find(from[e]);
+        int b = find(to[e]);
+        if(a == b){
+            return false;
+        }
+        if(size[a] < size[b]){
+            int t = a;
+            a = b;
+            b = t;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+        treeEdges[numTreeEdges++] = e;
+        cost += weight[e];
+        return true;
+    }
+
+    private int find(int x){
+        while(parent[x] != x){
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /*
+     * Finds the cheapest edge leaving each component among the edges
+     * lo..hi-1. An edge is packed as weight << 32 | index, so the
+     * smallest long is the cheapest edge with ties broken by index.
+     */
+    private class Cheapest extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        int[] comp;
+        AtomicLongArray best;
+        int lo;
+        int hi;
+        int grain;
+
+        Cheapest(int[] comp, AtomicLongArray best, int lo, int hi, int grain){
+            this.comp = comp;
+            this.best = best;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute(){
+            if(hi - lo > grain){
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Cheapest(comp, best, lo, mid, grain),
+                          new Cheapest(comp, best, mid, hi, grain));
+                return;
+            }
+            for(int e = lo; e < hi; ++e){
+                int a = comp[from[e]];
+                int b = comp[to[e]];
+                if(a != b){
+                    long key = (long)weight[e] << 32 | e;
+                    lower(a, key);
+                    lower(b, key);
+                }
+            }
+        }
+
+        private void lower(int c, long key){
+            long cur;
+            while(key < (cur = best.get(c)) && !best.compareAndSet(c, cur, key));
+        }
+    }
+}
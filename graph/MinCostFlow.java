@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+ * The purpose of this class is to find the maximum flow through a
+ * directed graph which has the lowest total cost, where every unit of
+ * flow over an edge costs the edge's weight.
+ *
+ * This is done with successive shortest paths on a FlowNetwork: flow is
+ * repeatedly pushed along the cheapest path in the residual graph. Each
+ * node keeps a potential, and edge costs are reweighted to
+ * cost + pi[u] - pi[v] (Johnson), which is never negative, so the paths
+ * can be found with Dijkstra on an IndexedHeap. Negative edge costs are
+ * allowed, the potentials are then started with Bellman-Ford. The graph
+ * must not have a cycle of negative cost reachable from the source, the
+ * constructor throws an IllegalArgumentException if it finds one.
+ *
+ * For large capacities there is a scaling mode. It first finds the
+ * value F of the maximum flow with Dinic and then sends F units from
+ * the source to the sink in phases delta = 2^k, ..., 2, 1, only using
+ * edges with at least delta capacity left. The number of shortest path
+ * searches is then O(E log U) instead of O(F). This mode also handles
+ * negative cycles, they are saturated.
+ *
+ * Edge(to, weight) sets the capacity to the weight as well, so for this
+ * class the cap field of the edges has to be set after construction.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class MinCostFlow{
+    FlowNetwork net;
+    long flow;
+    long cost;
+    int s;
+    int t;
+    boolean scaling;
+    //Node potentials, the reduced cost of a residual edge is never negative.
+    long[] pi;
+    long[] dist;
+    //Residual edge into each node on its shortest path, -1 for sources.
+    int[] parent;
+    //Flow still to be sent from each node, only used when scaling.
+    long[] excess;
+    IndexedHeap heap;
+
+    /*
+     * @param graph A datastructure which keeps the list of neighbors for each
+     *             node in the graph, weight is the cost per unit of flow and
+     *             cap the capacity, which has to be non-negative.
+     * @param s The index of the tap. (Start)
+     * @param t The index of the sink. (Target)
+     */
+    public MinCostFlow(ArrayList<LinkedList<Edge>> graph, int s, int t){
+        this(new FlowNetwork(graph), s, t, false);
+    }
+
+    /*
+     * Same as above, but runs on a CSR graph, using its weight and cap arrays.
+     */
+    public MinCostFlow(Graph g, int s, int t){
+        this(new FlowNetwork(g), s, t, false);
+    }
+
+    public MinCostFlow(FlowNetwork net, int s, int t){
+        this(net, s, t, false);
+    }
+
+    /*
+     * Computes the cheapest maximum flow in the given network, which
+     * should carry no flow. The network keeps the resulting flow.
+     *
+     * @param scaling True to use capacity scaling, the better choice
+     *                when the capacities and the flow are large.
+     */
+    public MinCostFlow(FlowNetwork net, int s, int t, boolean scaling){
+        this.net = net;
+        this.s = s;
+        this.t = t;
+        this.scaling = scaling;
+        int n = net.size();
+        pi = new long[n];
+        dist = new long[n];
+        parent = new int[n];
+        excess = new long[n];
+        heap = new IndexedHeap(n);
+        if(s == t){
+            return;
+        }
+        if(scaling){
+            scale();
+        } else {
+            successivePaths();
+        }
+    }
+
+    /*
+     * @return The value of the maximum flow.
+     */
+    public long getMaxFlow(){
+        return flow;
+    }
+
+    /*
+     * @return The total cost of the flow.
+     */
+    public long getMinCost(){
+        return cost;
+    }
+
+    /*
+     * @return The edges which have flow through them when the algorithm is done.
+     */
+    public LinkedList<Edge> getFlowingEdges(){
+        return net.getFlowingEdges();
+    }
+
+    /*
+     * @return The residual network holding the flow.
+     */
+    public FlowNetwork getNetwork(){
+        return net;
+    }
+
+    private void successivePaths(){
+        initPotentials();
+        int b;
+        while((b = search(1)) >= 0){
+            long push = Long.MAX_VALUE;
+            for(int v = b; parent[v] >= 0; v = net.to[net.rev[parent[v]]]){
+                push = Math.min(push, net.res[parent[v]]);
+            }
+            augment(b, push);
+            flow += push;
+        }
+    }
+
+    /*
+     * Bellman-Ford from s over the residual edges, only run if some
+     * edge has a negative cost. Nodes that can't be reached keep
+     * potential 0, they stay unreachable for the whole algorithm. A node
+     * queued more than n times lies on or behind a negative cycle.
+     */
+    private void initPotentials(){
+        int n = net.n;
+        boolean negative = false;
+        for(int e = 0; e < net.to.length; e++){
+            if(net.res[e] > 0 && net.cost[e] < 0){
+                negative = true;
+                break;
+            }
+        }
+        if(!negative){
+            return;
+        }
+        Arrays.fill(pi, Long.MAX_VALUE);
+        int[] queue = new int[n];
+        boolean[] inQueue = new boolean[n];
+        int[] count = new int[n];
+        int head = 0;
+        int size = 1;
+        pi[s] = 0;
+        queue[0] = s;
+        inQueue[s] = true;
+        while(size > 0){
+            int u = queue[head];
+            head = head + 1 == n ? 0 : head + 1;
+            size--;
+            inQueue[u] = false;
+            for(int e = net.start[u]; e < net.start[u+1]; e++){
+                int v = net.to[e];
+                if(net.res[e] > 0 && pi[u] + net.cost[e] < pi[v]){
+                    pi[v] = pi[u] + net.cost[e];
+                    if(!inQueue[v]){
+                        if(++count[v] > n){
+                            throw new IllegalArgumentException("The residual graph has a negative cycle");
+                        }
+                        inQueue[v] = true;
+                        int tail = head + size;
+                        queue[tail >= n ? tail - n : tail] = v;
+                        size++;
+                    }
+                }
+            }
+        }
+        for(int v = 0; v < n; v++){
+            if(pi[v] == Long.MAX_VALUE){
+                pi[v] = 0;
+            }
+        }
+    }
+
+    private void scale(){
+        long f = new Dinic(net, s, t).getMaxFlow();
+        net.reset();
+        excess[s] = f;
+        excess[t] = -f;
+        int maxCap = 1;
+        for(int e = 0; e < net.cap.length; e++){
+            maxCap = Math.max(maxCap, net.cap[e]);
+        }
+        for(long delta = Integer.highestOneBit(maxCap); delta >= 1; delta >>= 1){
+            //Edges with at least delta left join the residual graph, the
+            //ones with negative reduced cost are saturated to keep pi valid.
+            for(int u = 0; u < net.n; u++){
+                for(int e = net.start[u]; e < net.start[u+1]; e++){
+                    int v = net.to[e];
+                    if(net.res[e] >= delta && net.cost[e] + pi[u] - pi[v] < 0){
+                        int r = net.res[e];
+                        net.res[e] = 0;
+                        net.res[net.rev[e]] += r;
+                        excess[u] -= r;
+                        excess[v] += r;
+                        cost += (long)r * net.cost[e];
+                    }
+                }
+            }
+            int b;
+            while((b = search(delta)) >= 0){
+                long push = -excess[b];
+                int a = b;
+                for(; parent[a] >= 0; a = net.to[net.rev[parent[a]]]){
+                    push = Math.min(push, net.res[parent[a]]);
+                }
+                push = Math.min(push, excess[a]);
+                augment(b, push);
+                excess[a] -= push;
+                excess[b] += push;
+            }
+        }
+        flow = f;
+    }
+
+    /*
+     * Dijkstra on the reduced costs, using residual edges with at least
+     * delta capacity left. It starts from s, or from every node with an
+     * excess of at least delta when scaling, and stops at the first sink
+     * it settles. The potentials are then raised by min(dist, dist of
+     * the sink), which keeps the reduced costs non-negative and makes
+     * them 0 along the path found.
+     *
+     * @return The sink reached, -1 if there is none.
+     */
+    private int search(long delta){
+        int n = net.n;
+        Arrays.fill(dist, Long.MAX_VALUE);
+        heap.clear();
+        for(int v = 0; v < n; v++){
+            if(scaling ? excess[v] >= delta : v == s){
+                dist[v] = 0;
+                parent[v] = -1;
+                heap.update(v, 0);
+            }
+        }
+        int sink = -1;
+        while(!heap.isEmpty()){
+            int u = heap.poll();
+            if(scaling ? excess[u] <= -delta : u == t){
+                sink = u;
+                break;
+            }
+            for(int e = net.start[u]; e < net.start[u+1]; e++){
+                if(net.res[e] >= delta){
+                    int v = net.to[e];
+                    long d = dist[u] + net.cost[e] + pi[u] - pi[v];
+                    if(d < dist[v]){
+                        dist[v] = d;
+                        parent[v] = e;
+                        heap.update(v, d);
+                    }
+                }
+            }
+        }
+        if(sink < 0){
+            return -1;
+        }
+        long limit = dist[sink];
+        for(int v = 0; v < n; v++){
+            pi[v] += Math.min(dist[v], limit);
+        }
+        return sink;
+    }
+
+    /*
+     * Pushes flow along the parent edges ending in b.
+     */
+    private void augment(int b, long push){
+        for(int v = b; parent[v] >= 0; v = net.to[net.rev[parent[v]]]){
+            int e = parent[v];
+            net.res[e] -= push;
+            net.res[net.rev[e]] += push;
+            cost += push * net.cost[e];
+        }
+    }
+}
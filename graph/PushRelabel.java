@@ -0,0 +1,238 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+ * The purpose of this class is to find the maximum amount of flow
+ * that can be pushed through a directed graph.
+ *
+ * This is done by using the highest-label push-relabel algorithm on a
+ * FlowNetwork, with the gap heuristic and periodic global relabeling.
+ * Active nodes are kept in one intrusive list per height, so the
+ * highest active node is found without any queue objects. Excess that
+ * can't reach the sink is returned to the source, so the network holds
+ * a valid flow at the end, not just a preflow.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class PushRelabel{
+    FlowNetwork net;
+    int n;
+    int s;
+    int t;
+    int[] height;
+    long[] excess;
+    //Current arc of each node.
+    int[] cur;
+    //Number of nodes at each height.
+    int[] count;
+    //Active nodes at each height, linked through nextActive.
+    int[] bucket;
+    int[] nextActive;
+    int maxHeight;
+    int relabels;
+
+    /*
+     * @param graph A datastructure which keeps the list of neighbors for each
+     *             node in the graph, edge capacity has to be non-negative.
+     * @param s The index of the tap. (Start)
+     * @param t The index of the sink. (Target)
+     */
+    public PushRelabel(ArrayList<LinkedList<Edge>> graph, int s, int t){
+        this(new FlowNetwork(graph), s, t);
+    }
+
+    /*
+     * Same as above, but runs on a CSR graph, using its cap array.
+     */
+    public PushRelabel(Graph g, int s, int t){
+        this(new FlowNetwork(g), s, t);
+    }
+
+    /*
+     * Computes the maximum flow in the given network. The network keeps
+     * the resulting flow.
+     */
+    public PushRelabel(FlowNetwork net, int s, int t){
+        this.net = net;
+        this.s = s;
+        this.t = t;
+        n = net.size();
+        height = new int[n];
+        excess = new long[n];
+        cur = new int[n];
+        count = new int[2*n+1];
+        bucket = new int[2*n+1];
+        nextActive = new int[n];
+        if(s == t){
+            return;
+        }
+        for(int e = net.start[s]; e < net.start[s+1]; e++){
+            int d = net.res[e];
+            if(d > 0){
+                net.res[e] = 0;
+                net.res[net.rev[e]] += d;
+                excess[s] -= d;
+                excess[net.to[e]] += d;
+            }
+        }
+        globalRelabel();
+        while(maxHeight >= 0){
+            int v = bucket[maxHeight];
+            if(v < 0){
+                maxHeight--;
+                continue;
+            }
+            bucket[maxHeight] = nextActive[v];
+            discharge(v);
+            if(relabels > n){
+                globalRelabel();
+            }
+        }
+    }
+
+    /*
+     * @return The maximum flow to the sink.
+     */
+    public long getMaxFlow(){
+        return excess[t];
+    }
+
+    /*
+     * @return The edges which have flow through them when the algorithm is done.
+     */
+    public LinkedList<Edge> getFlowingEdges(){
+        return net.getFlowingEdges();
+    }
+
+    /*
+     * @return The residual network holding the flow.
+     */
+    public FlowNetwork getNetwork(){
+        return net;
+    }
+
+    /*
+     * @return For each node, true if it is on the source side of a
+     *         minimum cut.
+     */
+    public boolean[] getMinCut(){
+        return net.getMinCut(s);
+    }
+
+    /*
+     * @return The edges crossing the minimum cut, their capacities sum
+     *         to the maximum flow.
+     */
+    public LinkedList<Edge> getCutEdges(){
+        return net.getCutEdges(s);
+    }
+
+    private void discharge(int v){
+        while(excess[v] > 0){
+            int e = cur[v];
+            if(e == net.start[v+1]){
+                relabel(v);
+                continue;
+            }
+            int w = net.to[e];
+            if(net.res[e] > 0 && height[v] == height[w] + 1){
+                long d = Math.min(excess[v], net.res[e]);
+                net.res[e] -= d;
+                net.res[net.rev[e]] += d;
+                excess[v] -= d;
+                if(excess[w] == 0 && w != s && w != t){
+                    activate(w);
+                }
+                excess[w] += d;
+            } else {
+                cur[v]++;
+            }
+        }
+    }
+
+    private void relabel(int v){
+        relabels++;
+        int oldHeight = height[v];
+        int newHeight = 2*n;
+        for(int e = net.start[v]; e < net.start[v+1]; e++){
+            if(net.res[e] > 0){
+                newHeight = Math.min(newHeight, height[net.to[e]] + 1);
+            }
+        }
+        count[oldHeight]--;
+        if(count[oldHeight] == 0 && oldHeight < n){
+            //Gap: nothing between oldHeight and n can reach the sink anymore.
+            for(int u = 0; u < n; u++){
+                if(height[u] > oldHeight && height[u] < n){
+                    count[height[u]]--;
+                    height[u] = n + 1;
+                    count[n+1]++;
+                    cur[u] = net.start[u];
+                }
+            }
+            newHeight = Math.max(newHeight, n + 1);
+        }
+        height[v] = newHeight;
+        count[newHeight]++;
+        cur[v] = net.start[v];
+    }
+
+    private void activate(int v){
+        int h = height[v];
+        nextActive[v] = bucket[h];
+        bucket[h] = v;
+        if(h > maxHeight){
+            maxHeight = h;
+        }
+    }
+
+    /*
+     * Sets every height to the exact residual distance to the sink, or
+     * n plus the distance to the source for nodes that can't reach the
+     * sink, and rebuilds the active lists.
+     */
+    private void globalRelabel(){
+        relabels = 0;
+        Arrays.fill(height, 2*n);
+        Arrays.fill(count, 0);
+        Arrays.fill(bucket, -1);
+        maxHeight = -1;
+        //nextActive is rebuilt below, borrow it as the BFS queue.
+        int[] queue = nextActive;
+        height[t] = 0;
+        queue[0] = t;
+        int tail = bfs(queue, 0, 1);
+        height[s] = n;
+        queue[tail] = s;
+        bfs(queue, tail, tail + 1);
+        for(int v = 0; v < n; v++){
+            count[height[v]]++;
+            cur[v] = net.start[v];
+        }
+        for(int v = 0; v < n; v++){
+            if(excess[v] > 0 && v != s && v != t){
+                activate(v);
+            }
+        }
+    }
+
+    /*
+     * Backwards BFS over residual edges, from the nodes in
+     * queue[head..tail-1]. Returns the new tail.
+     */
+    private int bfs(int[] queue, int head, int tail){
+        while(head < tail){
+            int x = queue[head++];
+            for(int e = net.start[x]; e < net.start[x+1]; e++){
+                int y = net.to[e];
+                if(height[y] == 2*n && net.res[net.rev[e]] > 0 && y != s){
+                    height[y] = height[x] + 1;
+                    queue[tail++] = y;
+                }
+            }
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+ * The purpose of this class is to find the shortest path
+ * from a fixed starting node to any other node in a graph which
+ * may have negative edge weights.
+ *
+ * This is done with the queue-based variant of Bellman-Ford (SPFA):
+ * only nodes whose distance just changed have their edges relaxed, so
+ * the work stops as soon as distances settle, which is usually long
+ * before the n rounds plain Bellman-Ford does. A node that is queued n
+ * times lies on or behind a negative cycle. It stops being queued, and
+ * every node reachable from such nodes gets distance Long.MIN_VALUE in
+ * one shared traversal at the end.
+ *
+ * @author Jakob Vyth (vyth@kth.se)
+ * @author Carl Nyströmer (carlnys@kth.se)
+ */
+public class Spfa{
+    int[] parent;
+    long[] dist;
+    Graph g;
+    int s;
+
+    /*
+     * The constructor will run the algorithm and save the shortest path
+     * between s and every other node.
+     *
+     * @param g The graph, edge weight can be negative.
+     * @param source The index of the starting node.
+     */
+    public Spfa(Graph g, int source){
+        this.s = source;
+        this.g = g;
+        int n = g.size();
+        parent = new int[n];
+        dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        //Circular queue, every node is in it at most once.
+        int[] queue = new int[n];
+        int head = 0;
+        int size = 0;
+        boolean[] inQueue = new boolean[n];
+        int[] count = new int[n];
+        int[] seeds = new int[n];
+        int numSeeds = 0;
+
+        dist[source] = 0;
+        parent[source] = source;
+        queue[0] = source;
+        size = 1;
+        inQueue[source] = true;
+        int current;
+        int neigh;
+        long newDist;
+        while(size > 0){
+            current = queue[head];
+            head = head + 1 == n ? 0 : head + 1;
+            size--;
+            inQueue[current] = false;
+            for(int e = g.offset[current]; e < g.offset[current+1]; ++e){
+                neigh = g.to[e];
+                newDist = dist[current] + g.weight[e];
+                if(newDist < dist[neigh]){
+                    dist[neigh] = newDist;
+                    parent[neigh] = current;
+                    if(!inQueue[neigh] && count[neigh] < n){
+                        if(++count[neigh] == n){
+                            seeds[numSeeds++] = neigh;
+                            continue;
+                        }
+                        int tail = head + size;
+                        queue[tail >= n ? tail - n : tail] = neigh;
+                        size++;
+                        inQueue[neigh] = true;
+                    }
+                }
+            }
+        }
+        markInf(seeds, numSeeds);
+    }
+
+    /*
+     * Same as above, but takes an adjacency list.
+     *
+     * @param edges A datastructure which keeps the list of neighbors for each
+     *             node in the graph, edge weight can be negative.
+     * @param source The index of the starting node.
+     */
+    public Spfa(ArrayList<LinkedList<Edge>> edges, int source){
+        this(new Graph(edges), source);
+    }
+
+    /*
+     * Return parent array. To find the path s and t, backtrack
+     * through the parent array from t up until you find s. 
+     *
+     * @return The shortest paths between s and every other node 
+     *         as a parent array. 
+     */
+    public int[] shortestPaths() {
+        return parent;
+    }
+
+    /*
+     * @param t The target node. 
+     * @return The shortest path between s and t. 
+     *         If no such path exists, or it is arbitrarily short, return null.
+     */
+    public LinkedList<Integer> shortestPath(int t){
+        if(dist[t] == Long.MAX_VALUE || dist[t] == Long.MIN_VALUE){
+            return null;
+        }
+        LinkedList<Integer> path = new LinkedList<>();
+        while(t != s){
+            path.push(t);
+            t = parent[t]; 
+        }
+        path.push(s);
+        return path;
+    }
+
+    /*
+     * @return The distance to target, Long.MAX_VALUE if it can't be
+     *         reached and Long.MIN_VALUE if it is behind a negative cycle.
+     */
+    public long getMinDistTo(int target){
+        return dist[target];
+    }
+
+    private void markInf(int[] seeds, int numSeeds){
+        boolean[] visited = new boolean[g.size()];
+        int[] stack = new int[g.size()];
+        int top = 0;
+        for(int i = 0; i < numSeeds; ++i){
+            if(!visited[seeds[i]]){
+                visited[seeds[i]] = true;
+                stack[top++] = seeds[i];
+            }
+        }
+        while(top > 0){
+            int current = stack[--top];
+            dist[current] = Long.MIN_VALUE;
+            for(int e = g.offset[current]; e < g.offset[current+1]; ++e){
+                int neigh = g.to[e];
+                if(!visited[neigh]){
+                    visited[neigh] = true;
+                    stack[top++] = neigh;
+                }
+            }
+        }
+    }
+}